@@ -0,0 +1,181 @@
+package cz.muni.fi.airportmanager.flightservice.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread safe cache with a maximum number of entries and a time to live of each entry.
+ * <p>
+ * When the cache is full, the least recently used entry is evicted. Expired entries are removed
+ * when they are read or when they are found at the head of the eviction order.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values, {@code null} values are not allowed
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maxSize maximum number of entries
+     */
+    public BoundedTtlCache(int maxSize) {
+        this(maxSize, System::currentTimeMillis);
+    }
+
+    /**
+     * @param maxSize maximum number of entries
+     * @param clock   source of the current time in milliseconds
+     */
+    public BoundedTtlCache(int maxSize, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size of the cache must be positive");
+        }
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Get value stored under the key
+     *
+     * @param key key
+     * @return stored value or {@code null} if there is no value or it has expired
+     */
+    public synchronized V get(K key) {
+        var entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= clock.getAsLong()) {
+            entries.remove(key);
+            expirations.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Store value under the key, evicting the least recently used entry when the cache is full
+     *
+     * @param key        key
+     * @param value      value
+     * @param timeToLive how long the value stays in the cache
+     */
+    public synchronized void put(K key, V value, Duration timeToLive) {
+        var now = clock.getAsLong();
+        entries.put(key, new Entry<>(value, now + timeToLive.toMillis()));
+        evict(now);
+    }
+
+    /**
+     * Store value under the key if the condition holds, the condition is checked while the cache is locked,
+     * so a concurrent {@link #invalidate(Object)} either sees the value or makes the condition fail
+     *
+     * @param key        key
+     * @param value      value
+     * @param timeToLive how long the value stays in the cache
+     * @param condition  checked before the value is stored
+     * @return if the value was stored
+     */
+    public synchronized boolean putIf(K key, V value, Duration timeToLive, BooleanSupplier condition) {
+        if (!condition.getAsBoolean()) {
+            return false;
+        }
+        put(key, value, timeToLive);
+        return true;
+    }
+
+    /**
+     * Get value stored under the key, or atomically store the value created by the loader when there is none.
+     * The loader runs while the cache is locked, so it must be cheap.
+     *
+     * @param key        key
+     * @param loader     creates the value to store
+     * @param timeToLive how long the created value stays in the cache
+     * @return stored or created value
+     */
+    public synchronized V computeIfAbsent(K key, Function<? super K, ? extends V> loader, Duration timeToLive) {
+        var value = get(key);
+        if (value != null) {
+            return value;
+        }
+        var now = clock.getAsLong();
+        value = loader.apply(key);
+        entries.put(key, new Entry<>(value, now + timeToLive.toMillis()));
+        evict(now);
+        return value;
+    }
+
+    /**
+     * Remove value stored under the key
+     *
+     * @param key key
+     */
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Remove all values
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of entries removed because the cache was full
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of entries removed because their time to live has passed
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    private void evict(long now) {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            var entry = eldest.next();
+            eldest.remove();
+            if (entry.getValue().expiresAt <= now) {
+                expirations.increment();
+            } else {
+                evictions.increment();
+            }
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,103 @@
+package cz.muni.fi.airportmanager.flightservice.cache;
+
+import cz.muni.fi.airportmanager.flightservice.event.FlightChangedEvent;
+import cz.muni.fi.airportmanager.flightservice.model.CacheStatsDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of flights by id.
+ * <p>
+ * Flights that do not exist are cached too (as an empty {@link Optional}), so repeated lookups
+ * of unknown ids do not reach the database. Entries are invalidated when a flight change is committed.
+ */
+@ApplicationScoped
+public class FlightCache {
+
+    @ConfigProperty(name = "flight.cache.max-size", defaultValue = "10000")
+    int maxSize;
+
+    @ConfigProperty(name = "flight.cache.ttl", defaultValue = "60S")
+    Duration timeToLive;
+
+    @ConfigProperty(name = "flight.cache.negative-ttl", defaultValue = "5S")
+    Duration negativeTimeToLive;
+
+    private BoundedTtlCache<Long, Optional<FlightDto>> cache;
+
+    /**
+     * Incremented on every invalidation, so a flight loaded before an invalidation is not cached after it
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedTtlCache<>(maxSize);
+    }
+
+    /**
+     * Get cached flight
+     *
+     * @param id flight id
+     * @return {@code null} if the flight is not cached, empty optional if the flight is cached as not existing
+     */
+    public Optional<FlightDto> get(long id) {
+        return cache.get(id);
+    }
+
+    /**
+     * Get a stamp to be passed to {@link #put(long, FlightDto, long)} once the flight is loaded
+     *
+     * @return current stamp
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Cache flight loaded from the database, unless the cache was invalidated since the stamp was taken
+     *
+     * @param id     flight id
+     * @param flight loaded flight or {@code null} if the flight does not exist
+     * @param stamp  stamp taken before the flight was loaded
+     */
+    public void put(long id, FlightDto flight, long stamp) {
+        // the stamp is compared under the lock of the cache, an invalidation counted after the comparison
+        // removes the entry afterwards
+        if (flight == null) {
+            cache.putIf(id, Optional.empty(), negativeTimeToLive, () -> invalidations.get() == stamp);
+        } else {
+            cache.putIf(id, Optional.of(flight), timeToLive, () -> invalidations.get() == stamp);
+        }
+    }
+
+    void onFlightChanged(@Observes FlightChangedEvent event) {
+        // counted before the entry is removed, see put
+        invalidations.incrementAndGet();
+        if (event.getType() == FlightChangedEvent.Type.ALL_DELETED) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(event.getFlightId());
+        }
+    }
+
+    /**
+     * @return hit, miss and eviction counters of the cache
+     */
+    public CacheStatsDto stats() {
+        var stats = new CacheStatsDto();
+        stats.size = cache.size();
+        stats.hits = cache.getHits();
+        stats.misses = cache.getMisses();
+        stats.evictions = cache.getEvictions();
+        stats.expirations = cache.getExpirations();
+        return stats;
+    }
+}
@@ -0,0 +1,101 @@
+package cz.muni.fi.airportmanager.flightservice.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+
+import java.util.Date;
+
+/**
+ * Cancellation of a flight that has not been delivered to passenger service yet.
+ * The entry is written in the same transaction as the status change and deleted once passenger service acknowledges it.
+ */
+@Entity
+public class CancellationOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "CancellationOutbox_SEQ")
+    @SequenceGenerator(name = "CancellationOutbox_SEQ", sequenceName = "CancellationOutbox_SEQ", allocationSize = 50)
+    private Long id;
+    private Long flightId;
+    private String reason;
+    private Date createdAt;
+    /**
+     * Number of delivery attempts started so far
+     */
+    private int attempts;
+    /**
+     * The entry is not delivered before this date, set to the next retry when a delivery starts
+     */
+    private Date nextAttemptAt;
+    /**
+     * The entry could not be delivered within the maximum number of attempts and is no longer retried
+     */
+    private boolean parked;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    public void setFlightId(Long flightId) {
+        this.flightId = flightId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Date nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public boolean isParked() {
+        return parked;
+    }
+
+    public void setParked(boolean parked) {
+        this.parked = parked;
+    }
+
+    public static CancellationOutbox of(Long flightId, String reason, Date now) {
+        var entry = new CancellationOutbox();
+        entry.flightId = flightId;
+        entry.reason = reason;
+        entry.createdAt = now;
+        entry.nextAttemptAt = now;
+        return entry;
+    }
+}
@@ -4,16 +4,21 @@ package cz.muni.fi.airportmanager.flightservice.entity;
 import cz.muni.fi.airportmanager.flightservice.model.CreateFlightDto;
 import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
 import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 
 import java.util.Date;
 
 @Entity
 public class Flight {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "Flight_SEQ")
+    // ids are allocated in blocks, so importing a batch of flights does not need a sequence call per flight
+    @SequenceGenerator(name = "Flight_SEQ", sequenceName = "Flight_SEQ", allocationSize = 50)
     private Long id;
     private String name;
     private String airportFrom;
@@ -21,7 +26,17 @@ public class Flight {
     private Date departureTime;
     private Date arrivalTime;
     private int capacity;
+    /**
+     * Seats reserved at the last flush of the seat inventory
+     */
+    private int reservedSeats;
     private FlightStatus status;
+    /**
+     * Assigned by the database from a sequence whenever the flight is created or changed,
+     * read back after flights are created with {@code FlightRepository#persistWithVersion} or {@code #persistWithVersions}
+     */
+    @Column(insertable = false, updatable = false)
+    private long version;
 
     public Long getId() {
         return id;
@@ -79,6 +94,14 @@ public class Flight {
         this.capacity = capacity;
     }
 
+    public int getReservedSeats() {
+        return reservedSeats;
+    }
+
+    public void setReservedSeats(int reservedSeats) {
+        this.reservedSeats = reservedSeats;
+    }
+
     public FlightStatus getStatus() {
         return status;
     }
@@ -87,6 +110,10 @@ public class Flight {
         this.status = status;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public FlightDto toDto() {
         FlightDto flightDto = new FlightDto();
         flightDto.id = id;
@@ -97,6 +124,7 @@ public class Flight {
         flightDto.arrivalTime = arrivalTime;
         flightDto.capacity = capacity;
         flightDto.status = status;
+        flightDto.version = version;
         return flightDto;
     }
 
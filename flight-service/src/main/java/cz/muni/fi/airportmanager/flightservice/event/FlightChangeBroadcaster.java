@@ -0,0 +1,99 @@
+package cz.muni.fi.airportmanager.flightservice.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.muni.fi.airportmanager.flightservice.index.FlightTimeIndex;
+import cz.muni.fi.airportmanager.flightservice.model.FlightChangeDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.jboss.logging.Logger;
+
+/**
+ * Broadcasts committed flight changes to subscribers of the flight stream.
+ * <p>
+ * Every change is serialized once and the same JSON is sent to all subscribers.
+ * The flight before the change is taken from {@link FlightTimeIndex}, so this observer runs before the index is updated.
+ */
+@ApplicationScoped
+public class FlightChangeBroadcaster {
+
+    private static final Logger LOG = Logger.getLogger(FlightChangeBroadcaster.class);
+
+    @Inject
+    FlightTimeIndex flightTimeIndex;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    private final BroadcastProcessor<Change> processor = BroadcastProcessor.create();
+    private long sequence;
+
+    /**
+     * Serialized change of a flight
+     *
+     * @param sequence number of the change, increasing with every change
+     * @param type     type of the change
+     * @param flight   flight after the change, or before it when the flight was deleted, {@code null} if unknown
+     * @param json     change serialized as {@link FlightChangeDto}
+     */
+    public record Change(long sequence, FlightChangedEvent.Type type, FlightDto flight, String json) {
+
+        /**
+         * Whether the change concerns a flight with the given status and airport
+         *
+         * @param status  status of the flight after the change, {@code null} for any status
+         * @param airport departure or arrival airport of the flight, {@code null} for any airport
+         * @return if the change matches
+         */
+        public boolean matches(FlightStatus status, String airport) {
+            if (type == FlightChangedEvent.Type.ALL_DELETED || (status == null && airport == null)) {
+                return true;
+            }
+            if (flight == null) {
+                return false;
+            }
+            return (status == null || flight.status == status)
+                    && (airport == null || airport.equals(flight.airportFrom) || airport.equals(flight.airportTo));
+        }
+    }
+
+    /**
+     * Stream of flight changes committed after the subscription
+     *
+     * @return stream of changes
+     */
+    public Multi<Change> changes() {
+        return processor;
+    }
+
+    void onFlightChanged(@Observes @Priority(Interceptor.Priority.APPLICATION) FlightChangedEvent event) {
+        var flight = switch (event.getType()) {
+            case CREATED -> event.getFlight();
+            case DELETED -> flightTimeIndex.get(event.getFlightId());
+            case STATUS_CHANGED -> {
+                var previous = flightTimeIndex.get(event.getFlightId());
+                yield previous == null ? null : previous.withStatus(event.getStatus());
+            }
+            case ALL_DELETED -> null;
+        };
+        var change = new FlightChangeDto(event.getType(), event.getFlightId(), event.getType() == FlightChangedEvent.Type.DELETED ? null : flight);
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            LOG.warnf(e, "Failed to serialize change of flight %d", event.getFlightId());
+            return;
+        }
+        // changes are committed on different threads, the processor must be called serially
+        synchronized (processor) {
+            processor.onNext(new Change(++sequence, event.getType(), flight, json));
+        }
+    }
+}
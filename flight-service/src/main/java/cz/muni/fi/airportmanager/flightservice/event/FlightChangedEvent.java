@@ -0,0 +1,70 @@
+package cz.muni.fi.airportmanager.flightservice.event;
+
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+
+/**
+ * CDI event fired by {@code FlightService} after a change of flights has been committed
+ */
+public class FlightChangedEvent {
+
+    public enum Type {
+        CREATED,
+        DELETED,
+        ALL_DELETED,
+        STATUS_CHANGED
+    }
+
+    private final Type type;
+    private final Long flightId;
+    private final FlightDto flight;
+    private final FlightStatus status;
+
+    private FlightChangedEvent(Type type, Long flightId, FlightDto flight, FlightStatus status) {
+        this.type = type;
+        this.flightId = flightId;
+        this.flight = flight;
+        this.status = status;
+    }
+
+    public static FlightChangedEvent created(FlightDto flight) {
+        return new FlightChangedEvent(Type.CREATED, flight.id, flight, flight.status);
+    }
+
+    public static FlightChangedEvent deleted(long flightId) {
+        return new FlightChangedEvent(Type.DELETED, flightId, null, null);
+    }
+
+    public static FlightChangedEvent allDeleted() {
+        return new FlightChangedEvent(Type.ALL_DELETED, null, null, null);
+    }
+
+    public static FlightChangedEvent statusChanged(long flightId, FlightStatus status) {
+        return new FlightChangedEvent(Type.STATUS_CHANGED, flightId, null, status);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return id of the changed flight, {@code null} for {@link Type#ALL_DELETED}
+     */
+    public Long getFlightId() {
+        return flightId;
+    }
+
+    /**
+     * @return created flight, only set for {@link Type#CREATED}
+     */
+    public FlightDto getFlight() {
+        return flight;
+    }
+
+    /**
+     * @return new status of the flight, only set for {@link Type#CREATED} and {@link Type#STATUS_CHANGED}
+     */
+    public FlightStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,102 @@
+package cz.muni.fi.airportmanager.flightservice.grpc;
+
+import cz.muni.fi.airportmanager.proto.FlightsCancellationRequest;
+import cz.muni.fi.airportmanager.proto.FlightsCancellationResponse;
+import cz.muni.fi.airportmanager.proto.MutinyFlightCancellationGrpc;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.grpc.GrpcClient;
+import io.smallrye.common.annotation.NonBlocking;
+import io.smallrye.faulttolerance.api.CircuitBreakerMaintenance;
+import io.smallrye.faulttolerance.api.CircuitBreakerName;
+import io.smallrye.faulttolerance.api.ExponentialBackoff;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.eclipse.microprofile.faulttolerance.Retry;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client of the flight cancellation service of passenger service.
+ * <p>
+ * Every attempt has a deadline of {@code flight.cancellation.client.deadline}. Failed attempts are retried
+ * a bounded number of times with a jittered, exponentially growing delay, and when most of the recent calls
+ * failed the circuit breaker opens and calls fail immediately until passenger service recovers. The retry and
+ * circuit breaker settings are given by the annotations of {@link #cancelFlights(FlightsCancellationRequest)}.
+ * <p>
+ * Latency of the attempts is published as {@value #LATENCY_METRIC} and the state of the circuit breaker
+ * as {@value #BREAKER_STATE_METRIC} (0 closed, 1 half-open, 2 open).
+ */
+@ApplicationScoped
+public class PassengerCancellationClient {
+
+    static final String CIRCUIT_BREAKER = "passenger-service-cancellation";
+    static final String LATENCY_METRIC = "flight.cancellation.client.latency";
+    static final String BREAKER_STATE_METRIC = "flight.cancellation.client.breaker.state";
+
+    @GrpcClient("passenger-service")
+    MutinyFlightCancellationGrpc.MutinyFlightCancellationStub flightCancellationStub;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    CircuitBreakerMaintenance circuitBreakerMaintenance;
+
+    @ConfigProperty(name = "flight.cancellation.client.deadline", defaultValue = "2S")
+    Duration deadline;
+
+    private Timer successes;
+    private Timer failures;
+
+    @PostConstruct
+    void registerMetrics() {
+        successes = latencyTimer("success");
+        failures = latencyTimer("failure");
+        Gauge.builder(BREAKER_STATE_METRIC, circuitBreakerMaintenance, maintenance -> switch (maintenance.currentState(CIRCUIT_BREAKER)) {
+                    case CLOSED -> 0;
+                    case HALF_OPEN -> 1;
+                    case OPEN -> 2;
+                })
+                .description("State of the circuit breaker of the passenger service cancellation client")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cancel flights in passenger service
+     *
+     * @param request ids of the flights and reason of the cancellation
+     * @return result of the cancellation of each flight
+     */
+    @NonBlocking
+    @Retry(maxRetries = 3, delay = 200, jitter = 100, retryOn = StatusRuntimeException.class, abortOn = CircuitBreakerOpenException.class)
+    @ExponentialBackoff(factor = 2, maxDelay = 5000)
+    @CircuitBreaker(requestVolumeThreshold = 20, failureRatio = 0.5, delay = 10000, successThreshold = 3)
+    @CircuitBreakerName(CIRCUIT_BREAKER)
+    public Uni<FlightsCancellationResponse> cancelFlights(FlightsCancellationRequest request) {
+        return Uni.createFrom().deferred(() -> {
+            var start = System.nanoTime();
+            return flightCancellationStub.withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                    .cancelFlights(request)
+                    .onItemOrFailure().invoke((response, failure) ->
+                            (failure == null ? successes : failures).record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Timer latencyTimer(String outcome) {
+        return Timer.builder(LATENCY_METRIC)
+                .description("Latency of a single attempt to cancel flights in passenger service")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
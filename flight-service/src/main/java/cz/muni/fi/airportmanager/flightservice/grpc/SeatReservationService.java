@@ -0,0 +1,40 @@
+package cz.muni.fi.airportmanager.flightservice.grpc;
+
+import cz.muni.fi.airportmanager.flightservice.seat.SeatInventory;
+import cz.muni.fi.airportmanager.proto.MutinySeatReservationGrpc;
+import cz.muni.fi.airportmanager.proto.SeatReservationRequest;
+import cz.muni.fi.airportmanager.proto.SeatReservationResponse;
+import io.quarkus.grpc.GrpcService;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+
+@GrpcService
+public class SeatReservationService extends MutinySeatReservationGrpc.SeatReservationImplBase {
+
+    @Inject
+    SeatInventory seatInventory;
+
+    /**
+     * Reserve a seat on the flight, the flight is never booked over its capacity
+     *
+     * @param request request with flight id
+     * @return response with status of the reservation
+     */
+    @Override
+    public Uni<SeatReservationResponse> reserveSeat(SeatReservationRequest request) {
+        return seatInventory.reserve(request.getFlightId())
+                .onItem().transform(status -> SeatReservationResponse.newBuilder().setStatus(status).build());
+    }
+
+    /**
+     * Release seats reserved on the flight
+     *
+     * @param request request with flight id and number of seats, a single seat if not set
+     * @return response with status of the release
+     */
+    @Override
+    public Uni<SeatReservationResponse> releaseSeat(SeatReservationRequest request) {
+        return seatInventory.release(request.getFlightId(), Math.max(1, request.getSeats()))
+                .onItem().transform(status -> SeatReservationResponse.newBuilder().setStatus(status).build());
+    }
+}
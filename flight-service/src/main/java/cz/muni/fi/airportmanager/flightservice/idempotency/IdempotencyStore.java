@@ -0,0 +1,82 @@
+package cz.muni.fi.airportmanager.flightservice.idempotency;
+
+import cz.muni.fi.airportmanager.flightservice.cache.BoundedTtlCache;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.RestResponse;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Responses of requests sent with an {@value #HEADER} header.
+ * <p>
+ * The first request with a key starts the execution and every later request with the same key gets its response,
+ * including requests that arrive while the execution is still running. Executions that fail are forgotten,
+ * so the request can be retried with the same key. Reusing a key for a different request is rejected with
+ * {@value #UNPROCESSABLE_ENTITY}.
+ * <p>
+ * At most {@code flight.idempotency.max-size} responses are kept, each for {@code flight.idempotency.ttl}.
+ */
+@ApplicationScoped
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private static final int UNPROCESSABLE_ENTITY = 422;
+
+    @ConfigProperty(name = "flight.idempotency.max-size", defaultValue = "10000")
+    int maxSize;
+
+    @ConfigProperty(name = "flight.idempotency.ttl", defaultValue = "24H")
+    Duration timeToLive;
+
+    private BoundedTtlCache<Key, Execution> executions;
+
+    @PostConstruct
+    void init() {
+        executions = new BoundedTtlCache<>(maxSize);
+    }
+
+    /**
+     * Execute the action once per idempotency key
+     *
+     * @param operation      name of the operation, keys of different operations do not collide
+     * @param idempotencyKey key sent by the client, the action is executed every time if {@code null}
+     * @param request        request of the operation, compared with the request of the first execution
+     * @param action         executes the operation
+     * @param <T>            type of the response entity
+     * @return response of the first execution with the key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Uni<RestResponse<T>> execute(String operation, String idempotencyKey, Object request, Supplier<Uni<RestResponse<T>>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        var key = new Key(operation, idempotencyKey);
+        var execution = executions.computeIfAbsent(key, ignored -> new Execution(request, Uni.createFrom().deferred(action)
+                .onFailure().invoke(() -> executions.invalidate(key))
+                .memoize().indefinitely()), timeToLive);
+        if (!Objects.equals(execution.request, request)) {
+            return Uni.createFrom().item(RestResponse.ResponseBuilder.<T>create(UNPROCESSABLE_ENTITY).build());
+        }
+        return (Uni<RestResponse<T>>) (Uni<?>) execution.response;
+    }
+
+    /**
+     * @return number of stored responses, including executions that are still running
+     */
+    public int size() {
+        return executions.size();
+    }
+
+    private record Key(String operation, String idempotencyKey) {
+    }
+
+    private record Execution(Object request, Uni<? extends RestResponse<?>> response) {
+    }
+}
@@ -0,0 +1,128 @@
+package cz.muni.fi.airportmanager.flightservice.index;
+
+import cz.muni.fi.airportmanager.flightservice.event.FlightChangedEvent;
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatsDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import cz.muni.fi.airportmanager.flightservice.repository.FlightRepository;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.vertx.VertxContextSupport;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.jboss.logging.Logger;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counters of flights by status, departure airport and hour of departure.
+ * <p>
+ * The counters are rebuilt with one grouped query at startup and then updated by {@link FlightChangedEvent}s,
+ * so reading them does not touch the database. The flight before a deletion or status change is taken
+ * from {@link FlightTimeIndex}, so this observer runs before the index is updated.
+ * <p>
+ * Hours are hours of day in the time zone of the service, the same zone the departure times are stored in.
+ */
+@ApplicationScoped
+public class FlightStatistics {
+
+    private static final Logger LOG = Logger.getLogger(FlightStatistics.class);
+
+    @Inject
+    FlightRepository flightRepository;
+
+    @Inject
+    FlightTimeIndex flightTimeIndex;
+
+    private final Map<FlightStatus, Long> byStatus = new EnumMap<>(FlightStatus.class);
+    private final Map<String, Long> byAirportFrom = new HashMap<>();
+    private final long[] byDepartureHour = new long[24];
+    private long total;
+
+    void onStart(@Observes StartupEvent event) throws Throwable {
+        var groups = VertxContextSupport.subscribeAndAwait(() -> flightRepository.countByStatusAirportAndHour());
+        synchronized (this) {
+            clear();
+            for (var group : groups) {
+                var hour = (Number) group[2];
+                add((FlightStatus) group[0], (String) group[1], hour == null ? null : hour.intValue(), ((Number) group[3]).longValue());
+            }
+        }
+        LOG.infof("Flight statistics built with %d flights", snapshot().total);
+    }
+
+    void onFlightChanged(@Observes @Priority(Interceptor.Priority.APPLICATION) FlightChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED -> add(event.getFlight(), 1);
+            case DELETED -> add(flightTimeIndex.get(event.getFlightId()), -1);
+            case ALL_DELETED -> clear();
+            case STATUS_CHANGED -> changeStatus(flightTimeIndex.get(event.getFlightId()), event.getStatus());
+        }
+    }
+
+    /**
+     * Get snapshot of the counters, only non-zero counters are included
+     *
+     * @return counters of flights
+     */
+    public synchronized FlightStatsDto snapshot() {
+        var stats = new FlightStatsDto();
+        stats.total = total;
+        stats.byStatus = new EnumMap<>(byStatus);
+        stats.byAirportFrom = new TreeMap<>(byAirportFrom);
+        stats.byDepartureHour = new TreeMap<>();
+        for (var hour = 0; hour < byDepartureHour.length; hour++) {
+            if (byDepartureHour[hour] != 0) {
+                stats.byDepartureHour.put(hour, byDepartureHour[hour]);
+            }
+        }
+        return stats;
+    }
+
+    private synchronized void add(FlightDto flight, long delta) {
+        if (flight != null) {
+            add(flight.status, flight.airportFrom, departureHour(flight), delta);
+        }
+    }
+
+    private synchronized void changeStatus(FlightDto flight, FlightStatus newStatus) {
+        if (flight != null && flight.status != newStatus) {
+            increment(byStatus, flight.status, -1);
+            increment(byStatus, newStatus, 1);
+        }
+    }
+
+    private synchronized void clear() {
+        byStatus.clear();
+        byAirportFrom.clear();
+        Arrays.fill(byDepartureHour, 0);
+        total = 0;
+    }
+
+    private void add(FlightStatus status, String airportFrom, Integer hour, long delta) {
+        total += delta;
+        increment(byStatus, status, delta);
+        increment(byAirportFrom, airportFrom, delta);
+        if (hour != null) {
+            byDepartureHour[hour] += delta;
+        }
+    }
+
+    private static <K> void increment(Map<K, Long> counters, K key, long delta) {
+        if (key != null) {
+            // counters that drop to zero are removed, so deleted airports do not stay in the map
+            counters.merge(key, delta, (count, d) -> count + d == 0 ? null : count + d);
+        }
+    }
+
+    private static Integer departureHour(FlightDto flight) {
+        return flight.departureTime == null ? null : flight.departureTime.toInstant().atZone(ZoneId.systemDefault()).getHour();
+    }
+}
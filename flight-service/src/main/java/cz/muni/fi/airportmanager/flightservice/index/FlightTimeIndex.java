@@ -0,0 +1,323 @@
+package cz.muni.fi.airportmanager.flightservice.index;
+
+import cz.muni.fi.airportmanager.flightservice.event.FlightChangedEvent;
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import cz.muni.fi.airportmanager.flightservice.model.ItineraryDto;
+import cz.muni.fi.airportmanager.flightservice.repository.FlightRepository;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.vertx.VertxContextSupport;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of flights by departure and arrival time, by route and by departure airport.
+ * <p>
+ * Flight ids are kept in two sorted maps, one keyed by departure time and one keyed by arrival time,
+ * so future and past flights are a single range lookup. Ongoing flights must have departed before
+ * the given date, and no flight is longer than the longest flight seen so far, so only flights
+ * departing in that window have to be checked.
+ * <p>
+ * The index holds the only in-memory copy of the flights. The {@link RouteTable} and the {@link ItineraryGraph}
+ * only keep flight ids and are changed and read under the same lock as the rest of the index.
+ * <p>
+ * The index is rebuilt from the database at startup and kept up to date by {@link FlightChangedEvent}s.
+ */
+@ApplicationScoped
+public class FlightTimeIndex {
+
+    private static final Logger LOG = Logger.getLogger(FlightTimeIndex.class);
+
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    @Inject
+    FlightRepository flightRepository;
+
+    /**
+     * Only departures within this window after the requested departure are searched for itineraries
+     */
+    @ConfigProperty(name = "flight.itinerary.search-window", defaultValue = "48H")
+    Duration searchWindow;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, FlightDto> flights = new HashMap<>();
+    private final NavigableMap<Long, Set<Long>> byDeparture = new TreeMap<>();
+    private final NavigableMap<Long, Set<Long>> byArrival = new TreeMap<>();
+    private final RouteTable routeTable = new RouteTable();
+    private final ItineraryGraph itineraryGraph = new ItineraryGraph();
+    private long longestFlight = 0;
+
+    // runs before the default observers, so other beans can be built from the index at startup
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION) StartupEvent event) throws Throwable {
+        var count = VertxContextSupport.subscribeAndAwait(() -> flightRepository.streamAll(REBUILD_CHUNK_SIZE)
+                .onItem().invoke(this::add)
+                .collect().with(Collectors.counting()));
+        LOG.infof("Flight time index built with %d flights", count);
+    }
+
+    void onFlightChanged(@Observes FlightChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED -> add(event.getFlight());
+            case DELETED -> remove(event.getFlightId());
+            case ALL_DELETED -> clear();
+            case STATUS_CHANGED -> changeStatus(event.getFlightId(), event.getStatus());
+        }
+    }
+
+    /**
+     * Add flight to the index, replacing the flight with the same id
+     *
+     * @param flight flight to add
+     */
+    public void add(FlightDto flight) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(flight.id);
+            flights.put(flight.id, flight);
+            if (flight.departureTime != null) {
+                byDeparture.computeIfAbsent(flight.departureTime.getTime(), k -> new LinkedHashSet<>()).add(flight.id);
+            }
+            if (flight.arrivalTime != null) {
+                byArrival.computeIfAbsent(flight.arrivalTime.getTime(), k -> new LinkedHashSet<>()).add(flight.id);
+            }
+            if (flight.departureTime != null && flight.arrivalTime != null) {
+                longestFlight = Math.max(longestFlight, flight.arrivalTime.getTime() - flight.departureTime.getTime());
+            }
+            routeTable.add(flight);
+            itineraryGraph.add(flight);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove flight from the index
+     *
+     * @param id flight id
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove all flights from the index
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            flights.clear();
+            byDeparture.clear();
+            byArrival.clear();
+            routeTable.clear();
+            itineraryGraph.clear();
+            longestFlight = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Change status of the indexed flight
+     *
+     * @param id        flight id
+     * @param newStatus new status
+     */
+    public void changeStatus(long id, FlightStatus newStatus) {
+        lock.writeLock().lock();
+        try {
+            var flight = flights.get(id);
+            if (flight != null) {
+                // flights handed out by the index are never modified, replace the flight instead
+                var changed = flight.withStatus(newStatus);
+                flights.put(id, changed);
+                itineraryGraph.remove(flight);
+                itineraryGraph.add(changed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get indexed flight
+     *
+     * @param id flight id
+     * @return flight or {@code null} if the flight is not indexed
+     */
+    public FlightDto get(long id) {
+        lock.readLock().lock();
+        try {
+            return flights.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find all flights that depart at or after the given date
+     *
+     * @param currentDate current date
+     * @return list of flights ordered by departure time
+     */
+    public List<FlightDto> findFuture(Date currentDate) {
+        lock.readLock().lock();
+        try {
+            return collect(byDeparture.tailMap(currentDate.getTime(), true).values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find all flights that departed but have not arrived yet at the given date
+     *
+     * @param currentDate current date
+     * @return list of flights ordered by departure time
+     */
+    public List<FlightDto> findOngoing(Date currentDate) {
+        var time = currentDate.getTime();
+        lock.readLock().lock();
+        try {
+            var candidates = byDeparture.subMap(time - longestFlight, true, time, true).values();
+            var result = new ArrayList<FlightDto>();
+            for (var ids : candidates) {
+                for (var id : ids) {
+                    var flight = flights.get(id);
+                    if (flight.arrivalTime != null && flight.arrivalTime.getTime() >= time) {
+                        result.add(flight);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find all flights that arrived before the given date
+     *
+     * @param currentDate current date
+     * @return list of flights ordered by arrival time
+     */
+    public List<FlightDto> findPast(Date currentDate) {
+        lock.readLock().lock();
+        try {
+            return collect(byArrival.headMap(currentDate.getTime(), false).values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find all indexed flights
+     *
+     * @return list of flights in no particular order
+     */
+    public List<FlightDto> findAll() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(flights.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find flights between two airports departing in the given time window
+     *
+     * @param airportFrom  departure airport
+     * @param airportTo    arrival airport
+     * @param departAfter  flights departing at or after this date, {@code null} for no lower bound
+     * @param departBefore flights departing before this date, {@code null} for no upper bound
+     * @param status       status of the flights, {@code null} for any status
+     * @return list of flights ordered by departure time
+     */
+    public List<FlightDto> findRoute(String airportFrom, String airportTo, Date departAfter, Date departBefore, FlightStatus status) {
+        lock.readLock().lock();
+        try {
+            return routeTable.find(flights::get, airportFrom, airportTo, departAfter, departBefore, status);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find itineraries from one airport to another with the earliest arrival, cancelled flights are not used
+     *
+     * @param airportFrom   departure airport
+     * @param airportTo     arrival airport
+     * @param departAfter   the first flight departs at or after this date
+     * @param minConnection minimum time between arrival and departure of connecting flights
+     * @param maxLegs       maximum number of flights of an itinerary
+     * @return itineraries ordered by number of legs, each arriving earlier than the previous one
+     */
+    public List<ItineraryDto> findEarliestArrival(String airportFrom, String airportTo, Date departAfter, Duration minConnection, int maxLegs) {
+        lock.readLock().lock();
+        try {
+            return itineraryGraph.findEarliestArrival(flights::get, airportFrom, airportTo, departAfter, minConnection, maxLegs, searchWindow);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<FlightDto> collect(Collection<Set<Long>> idSets) {
+        var result = new ArrayList<FlightDto>();
+        for (var ids : idSets) {
+            for (var id : ids) {
+                result.add(flights.get(id));
+            }
+        }
+        return result;
+    }
+
+    private void removeUnlocked(long id) {
+        var flight = flights.remove(id);
+        if (flight == null) {
+            return;
+        }
+        if (flight.departureTime != null) {
+            removeFromBucket(byDeparture, flight.departureTime.getTime(), id);
+        }
+        if (flight.arrivalTime != null) {
+            removeFromBucket(byArrival, flight.arrivalTime.getTime(), id);
+        }
+        routeTable.remove(flight);
+        itineraryGraph.remove(flight);
+    }
+
+    private static void removeFromBucket(NavigableMap<Long, Set<Long>> index, long time, long id) {
+        var ids = index.get(time);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(time);
+            }
+        }
+    }
+}
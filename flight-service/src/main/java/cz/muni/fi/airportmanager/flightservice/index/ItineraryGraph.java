@@ -0,0 +1,154 @@
+package cz.muni.fi.airportmanager.flightservice.index;
+
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import cz.muni.fi.airportmanager.flightservice.model.ItineraryDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+
+/**
+ * Time-expanded graph of the flight schedule used to search itineraries, part of {@link FlightTimeIndex}.
+ * <p>
+ * Every airport has the ids of its departures sorted by time. A departure is a node of the graph, the flight leads
+ * to its arrival airport and waiting at an airport is moving to a later departure of the same airport.
+ * Cancelled flights are not part of the graph until their status changes again. The flights themselves
+ * are only held by the index, the graph is changed and read under the lock of the index.
+ */
+final class ItineraryGraph {
+
+    private final Map<String, NavigableMap<Long, Set<Long>>> departures = new HashMap<>();
+
+    /**
+     * Add flight to the graph, flights without airports or times and cancelled flights are not added
+     *
+     * @param flight flight to add
+     */
+    void add(FlightDto flight) {
+        if (!isLinked(flight)) {
+            return;
+        }
+        departures.computeIfAbsent(flight.airportFrom, k -> new TreeMap<>())
+                .computeIfAbsent(flight.departureTime.getTime(), k -> new LinkedHashSet<>())
+                .add(flight.id);
+    }
+
+    /**
+     * Remove flight from the graph
+     *
+     * @param flight flight to remove, as it was added
+     */
+    void remove(FlightDto flight) {
+        if (!isLinked(flight)) {
+            return;
+        }
+        var airportDepartures = departures.get(flight.airportFrom);
+        var time = flight.departureTime.getTime();
+        var ids = airportDepartures.get(time);
+        ids.remove(flight.id);
+        if (ids.isEmpty()) {
+            airportDepartures.remove(time);
+            if (airportDepartures.isEmpty()) {
+                departures.remove(flight.airportFrom);
+            }
+        }
+    }
+
+    /**
+     * Remove all flights from the graph
+     */
+    void clear() {
+        departures.clear();
+    }
+
+    /**
+     * Find itineraries with the earliest arrival.
+     * <p>
+     * The search goes in rounds, round {@code n} finds the earliest arrival at every airport using at most
+     * {@code n} flights, starting only from airports that were reached earlier in the previous round.
+     * Departures after the best arrival at the destination found so far are never scanned.
+     *
+     * @param flights       indexed flights by id
+     * @param airportFrom   departure airport
+     * @param airportTo     arrival airport
+     * @param departAfter   the first flight departs at or after this date
+     * @param minConnection minimum time between arrival and departure of connecting flights
+     * @param maxLegs       maximum number of flights of an itinerary
+     * @param searchWindow  only departures within this window after {@code departAfter} are searched
+     * @return itineraries ordered by number of legs, each arriving earlier than the previous one
+     */
+    List<ItineraryDto> findEarliestArrival(LongFunction<FlightDto> flights, String airportFrom, String airportTo, Date departAfter,
+                                           Duration minConnection, int maxLegs, Duration searchWindow) {
+        if (airportFrom.equals(airportTo)) {
+            return Collections.emptyList();
+        }
+        var result = new ArrayList<ItineraryDto>();
+        var horizon = departAfter.getTime() + searchWindow.toMillis();
+        var bestArrival = new HashMap<String, Long>();
+        var bestAtDestination = Long.MAX_VALUE;
+        Map<String, Label> reached = Map.of(airportFrom, new Label(departAfter.getTime(), null, null));
+        for (int legs = 1; legs <= maxLegs && !reached.isEmpty(); legs++) {
+            var improved = new HashMap<String, Label>();
+            for (var entry : reached.entrySet()) {
+                var label = entry.getValue();
+                var ready = label.flight == null ? label.arrival : label.arrival + minConnection.toMillis();
+                var airportDepartures = departures.get(entry.getKey());
+                var latest = Math.min(bestAtDestination, horizon);
+                if (airportDepartures == null || ready >= latest) {
+                    continue;
+                }
+                for (var ids : airportDepartures.subMap(ready, true, latest, false).values()) {
+                    for (var id : ids) {
+                        var flight = flights.apply(id);
+                        var arrival = flight.arrivalTime.getTime();
+                        if (arrival >= bestAtDestination || arrival >= bestArrival.getOrDefault(flight.airportTo, Long.MAX_VALUE)) {
+                            continue;
+                        }
+                        bestArrival.put(flight.airportTo, arrival);
+                        improved.put(flight.airportTo, new Label(arrival, flight, label));
+                        if (flight.airportTo.equals(airportTo)) {
+                            bestAtDestination = arrival;
+                        }
+                    }
+                }
+            }
+            var destination = improved.remove(airportTo);
+            if (destination != null) {
+                result.add(new ItineraryDto(destination.legs()));
+            }
+            improved.remove(airportFrom);
+            reached = improved;
+        }
+        return result;
+    }
+
+    private static boolean isLinked(FlightDto flight) {
+        return flight.airportFrom != null && flight.airportTo != null && flight.departureTime != null && flight.arrivalTime != null
+                && flight.status != FlightStatus.CANCELLED;
+    }
+
+    /**
+     * Earliest arrival at an airport, reached by the flight from the previous label
+     */
+    private record Label(long arrival, FlightDto flight, Label previous) {
+
+        List<FlightDto> legs() {
+            var legs = new ArrayList<FlightDto>();
+            for (var label = this; label.flight != null; label = label.previous) {
+                legs.add(label.flight);
+            }
+            Collections.reverse(legs);
+            return legs;
+        }
+    }
+}
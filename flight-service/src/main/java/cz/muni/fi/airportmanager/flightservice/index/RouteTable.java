@@ -0,0 +1,111 @@
+package cz.muni.fi.airportmanager.flightservice.index;
+
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+
+/**
+ * Flights by route, part of {@link FlightTimeIndex}.
+ * <p>
+ * Flight ids are grouped by their departure and arrival airport, ids of flights of a route are kept in a map
+ * sorted by departure time, so a search is a single hash lookup followed by a range lookup. The flights
+ * themselves are only held by the index, the table is changed and read under the lock of the index.
+ */
+final class RouteTable {
+
+    private final Map<Route, NavigableMap<Long, Set<Long>>> routes = new HashMap<>();
+
+    /**
+     * Add flight to the table.
+     * Flights without airports or departure time are not added, they can not be found by a search.
+     *
+     * @param flight flight to add
+     */
+    void add(FlightDto flight) {
+        if (!isSearchable(flight)) {
+            return;
+        }
+        routes.computeIfAbsent(new Route(flight.airportFrom, flight.airportTo), k -> new TreeMap<>())
+                .computeIfAbsent(flight.departureTime.getTime(), k -> new LinkedHashSet<>())
+                .add(flight.id);
+    }
+
+    /**
+     * Remove flight from the table
+     *
+     * @param flight flight to remove, as it was added
+     */
+    void remove(FlightDto flight) {
+        if (!isSearchable(flight)) {
+            return;
+        }
+        var route = new Route(flight.airportFrom, flight.airportTo);
+        var departures = routes.get(route);
+        var time = flight.departureTime.getTime();
+        var ids = departures.get(time);
+        ids.remove(flight.id);
+        if (ids.isEmpty()) {
+            departures.remove(time);
+            if (departures.isEmpty()) {
+                routes.remove(route);
+            }
+        }
+    }
+
+    /**
+     * Remove all flights from the table
+     */
+    void clear() {
+        routes.clear();
+    }
+
+    /**
+     * Find flights of the route departing in the given time window
+     *
+     * @param flights      indexed flights by id
+     * @param airportFrom  departure airport
+     * @param airportTo    arrival airport
+     * @param departAfter  flights departing at or after this date, {@code null} for no lower bound
+     * @param departBefore flights departing before this date, {@code null} for no upper bound
+     * @param status       status of the flights, {@code null} for any status
+     * @return list of flights ordered by departure time
+     */
+    List<FlightDto> find(LongFunction<FlightDto> flights, String airportFrom, String airportTo, Date departAfter, Date departBefore, FlightStatus status) {
+        var route = routes.get(new Route(airportFrom, airportTo));
+        var result = new ArrayList<FlightDto>();
+        if (route == null) {
+            return result;
+        }
+        var from = departAfter == null ? Long.MIN_VALUE : departAfter.getTime();
+        var to = departBefore == null ? Long.MAX_VALUE : departBefore.getTime();
+        if (from >= to) {
+            return result;
+        }
+        for (var ids : route.subMap(from, true, to, false).values()) {
+            for (var id : ids) {
+                var flight = flights.apply(id);
+                if (status == null || flight.status == status) {
+                    result.add(flight);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean isSearchable(FlightDto flight) {
+        return flight.airportFrom != null && flight.airportTo != null && flight.departureTime != null;
+    }
+
+    private record Route(String airportFrom, String airportTo) {
+    }
+}
@@ -0,0 +1,9 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+public class CacheStatsDto {
+    public int size;
+    public long hits;
+    public long misses;
+    public long evictions;
+    public long expirations;
+}
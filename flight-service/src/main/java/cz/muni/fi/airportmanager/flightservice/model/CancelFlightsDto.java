@@ -0,0 +1,8 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+import java.util.List;
+
+public class CancelFlightsDto {
+    public List<Long> ids;
+    public String reason;
+}
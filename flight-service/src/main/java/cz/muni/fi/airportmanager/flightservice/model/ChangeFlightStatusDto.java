@@ -0,0 +1,13 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+import java.util.Date;
+
+/**
+ * Status change of all flights matching the criteria, criteria that are not set are not applied
+ */
+public class ChangeFlightStatusDto {
+    public FlightStatus status;
+    public String airportFrom;
+    public Date departureBefore;
+    public FlightStatus newStatus;
+}
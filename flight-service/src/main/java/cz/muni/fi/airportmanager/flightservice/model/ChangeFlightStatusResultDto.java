@@ -0,0 +1,12 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+public class ChangeFlightStatusResultDto {
+    public int changed;
+
+    public ChangeFlightStatusResultDto() {
+    }
+
+    public ChangeFlightStatusResultDto(int changed) {
+        this.changed = changed;
+    }
+}
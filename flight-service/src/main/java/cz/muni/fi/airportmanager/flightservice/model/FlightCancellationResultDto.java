@@ -0,0 +1,34 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+import java.util.Objects;
+
+public class FlightCancellationResultDto {
+    public long id;
+    public FlightCancellationStatus status;
+
+    public FlightCancellationResultDto(long id, FlightCancellationStatus status) {
+        this.id = id;
+        this.status = status;
+    }
+
+    public FlightCancellationResultDto() {
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        FlightCancellationResultDto that = (FlightCancellationResultDto) o;
+
+        if (id != that.id) return false;
+        return status == that.status;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (id ^ (id >>> 32));
+        result = 31 * result + Objects.hashCode(status);
+        return result;
+    }
+}
@@ -0,0 +1,7 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+public enum FlightCancellationStatus {
+    CANCELLED,
+    NOT_FOUND,
+    ERROR
+}
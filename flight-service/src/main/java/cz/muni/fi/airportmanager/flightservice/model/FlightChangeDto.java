@@ -0,0 +1,27 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+import cz.muni.fi.airportmanager.flightservice.event.FlightChangedEvent;
+
+/**
+ * Change of a flight sent to subscribers of the flight stream
+ */
+public class FlightChangeDto {
+    public FlightChangedEvent.Type type;
+    /**
+     * Id of the changed flight, {@code null} when all flights were deleted
+     */
+    public Long id;
+    /**
+     * Flight after the change, {@code null} when the flight was deleted
+     */
+    public FlightDto flight;
+
+    public FlightChangeDto() {
+    }
+
+    public FlightChangeDto(FlightChangedEvent.Type type, Long id, FlightDto flight) {
+        this.type = type;
+        this.id = id;
+        this.flight = flight;
+    }
+}
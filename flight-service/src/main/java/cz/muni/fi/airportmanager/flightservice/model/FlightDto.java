@@ -1,8 +1,41 @@
 package cz.muni.fi.airportmanager.flightservice.model;
 
+import java.util.Date;
 
 public class FlightDto extends CreateFlightDto {
     public long id;
+    /**
+     * Changes whenever the flight changes, used in its ETag
+     */
+    public long version;
+
+    public FlightDto() {
+    }
+
+    /**
+     * Used by the projection queries of {@code FlightRepository}
+     */
+    public FlightDto(Long id, String name, String airportFrom, String airportTo, Date departureTime, Date arrivalTime, Integer capacity, FlightStatus status, Long version) {
+        this.id = id;
+        this.name = name;
+        this.airportFrom = airportFrom;
+        this.airportTo = airportTo;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.capacity = capacity;
+        this.status = status;
+        this.version = version;
+    }
+
+    /**
+     * Copy of the flight with a different status
+     *
+     * @param status status of the copy
+     * @return new flight
+     */
+    public FlightDto withStatus(FlightStatus status) {
+        return new FlightDto(id, name, airportFrom, airportTo, departureTime, arrivalTime, capacity, status, version);
+    }
 
     @Override
     public boolean equals(Object o) {
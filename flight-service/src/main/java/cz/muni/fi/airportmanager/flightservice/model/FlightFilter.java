@@ -0,0 +1,21 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+import java.util.Date;
+
+/**
+ * Filter of listed flights, criteria that are {@code null} are not applied
+ */
+public class FlightFilter {
+    public FlightStatus status;
+    public String airportFrom;
+    public String airportTo;
+    public Date departAfter;
+    public Date departBefore;
+
+    /**
+     * @return {@code true} if no criterion is given
+     */
+    public boolean isEmpty() {
+        return status == null && airportFrom == null && airportTo == null && departAfter == null && departBefore == null;
+    }
+}
@@ -0,0 +1,40 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+import java.util.Objects;
+
+/**
+ * Flight of a batch import that was not imported
+ */
+public class FlightImportErrorDto {
+    /**
+     * Position of the flight in the batch, starting from 0
+     */
+    public int index;
+    public String message;
+
+    public FlightImportErrorDto() {
+    }
+
+    public FlightImportErrorDto(int index, String message) {
+        this.index = index;
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        FlightImportErrorDto that = (FlightImportErrorDto) o;
+
+        if (index != that.index) return false;
+        return Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = index;
+        result = 31 * result + (message != null ? message.hashCode() : 0);
+        return result;
+    }
+}
@@ -0,0 +1,9 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FlightImportResultDto {
+    public int imported;
+    public List<FlightImportErrorDto> errors = new ArrayList<>();
+}
@@ -0,0 +1,13 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+import java.util.Map;
+
+public class FlightStatsDto {
+    public long total;
+    public Map<FlightStatus, Long> byStatus;
+    public Map<String, Long> byAirportFrom;
+    /**
+     * Number of flights by hour of day (0 - 23) of their departure
+     */
+    public Map<Integer, Long> byDepartureHour;
+}
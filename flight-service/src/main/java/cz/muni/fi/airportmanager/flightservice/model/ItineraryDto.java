@@ -0,0 +1,22 @@
+package cz.muni.fi.airportmanager.flightservice.model;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Connection of one or more flights from the departure to the arrival airport
+ */
+public class ItineraryDto {
+    public List<FlightDto> legs;
+    public Date departureTime;
+    public Date arrivalTime;
+
+    public ItineraryDto() {
+    }
+
+    public ItineraryDto(List<FlightDto> legs) {
+        this.legs = legs;
+        this.departureTime = legs.get(0).departureTime;
+        this.arrivalTime = legs.get(legs.size() - 1).arrivalTime;
+    }
+}
@@ -0,0 +1,173 @@
+package cz.muni.fi.airportmanager.flightservice.outbox;
+
+import cz.muni.fi.airportmanager.flightservice.entity.CancellationOutbox;
+import cz.muni.fi.airportmanager.flightservice.grpc.PassengerCancellationClient;
+import cz.muni.fi.airportmanager.flightservice.repository.CancellationOutboxRepository;
+import cz.muni.fi.airportmanager.proto.FlightCancellationResponseStatus;
+import cz.muni.fi.airportmanager.proto.FlightCancellationResult;
+import cz.muni.fi.airportmanager.proto.FlightsCancellationRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers cancellations from the outbox to passenger service.
+ * <p>
+ * Due entries are claimed in a short transaction that moves their next attempt into the future, so the gRPC call
+ * runs without holding a database connection and concurrent relays skip the claimed entries. The claimed entries
+ * are sent with one request per cancellation reason and deleted once passenger service acknowledges them.
+ * Entries that were not acknowledged are retried when their next attempt is due, with the delay doubling
+ * with every attempt up to {@code flight.cancellation.outbox.max-retry-delay}.
+ * <p>
+ * Entries that were not acknowledged within {@code flight.cancellation.outbox.max-attempts} attempts, and entries
+ * of flights whose id can not be sent to passenger service, are parked instead of being retried. Parked entries
+ * are kept in the outbox for inspection and counted by {@value #PARKED_METRIC}.
+ * <p>
+ * An entry is only deleted after it was acknowledged, so a cancellation may be delivered more than once.
+ */
+@ApplicationScoped
+public class CancellationRelay {
+
+    static final String PARKED_METRIC = "flight.cancellation.outbox.parked";
+
+    private static final Logger LOG = Logger.getLogger(CancellationRelay.class);
+
+    @Inject
+    CancellationOutboxRepository outboxRepository;
+
+    @Inject
+    PassengerCancellationClient passengerCancellationClient;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "flight.cancellation.outbox.batch-size", defaultValue = "100")
+    int batchSize;
+
+    @ConfigProperty(name = "flight.cancellation.outbox.retry-delay", defaultValue = "5S")
+    Duration retryDelay;
+
+    @ConfigProperty(name = "flight.cancellation.outbox.max-retry-delay", defaultValue = "10M")
+    Duration maxRetryDelay;
+
+    @ConfigProperty(name = "flight.cancellation.outbox.max-attempts", defaultValue = "20")
+    int maxAttempts;
+
+    private Counter parked;
+
+    @PostConstruct
+    void registerMetrics() {
+        parked = Counter.builder(PARKED_METRIC)
+                .description("Flight cancellations parked in the outbox because they could not be delivered")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deliver all due entries, batch by batch
+     *
+     * @return when the due entries were delivered or scheduled for a retry
+     */
+    @Scheduled(every = "${flight.cancellation.outbox.relay-interval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public Uni<Void> relay() {
+        return Multi.createBy().repeating()
+                .uni(this::relayBatch)
+                .whilst(claimed -> claimed == batchSize)
+                .collect().last()
+                .onFailure().invoke(failure -> LOG.warn("Failed to relay flight cancellations", failure))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    private Uni<Integer> relayBatch() {
+        return claim().chain(claimed -> {
+            var entries = claimed.stream().filter(entry -> !entry.isParked()).toList();
+            if (entries.isEmpty()) {
+                return Uni.createFrom().item(claimed.size());
+            }
+            var byReason = entries.stream()
+                    .collect(Collectors.groupingBy(CancellationOutbox::getReason, LinkedHashMap::new, Collectors.toList()));
+            return Multi.createFrom().iterable(byReason.entrySet())
+                    .onItem().transformToUniAndConcatenate(group -> deliver(group.getKey(), group.getValue()))
+                    .collect().in(ArrayList<Long>::new, List::addAll)
+                    .chain(delivered -> Panache.withTransaction(() -> outboxRepository.deleteByIds(delivered)))
+                    .replaceWith(claimed.size());
+        });
+    }
+
+    /**
+     * @return claimed entries, including the entries parked by the claim
+     */
+    private Uni<List<CancellationOutbox>> claim() {
+        var now = new Date();
+        return Panache.withTransaction(() -> outboxRepository.lockDue(now, batchSize)
+                .onItem().invoke(entries -> entries.forEach(entry -> {
+                    if (entry.getAttempts() >= maxAttempts || !isSendable(entry.getFlightId())) {
+                        entry.setParked(true);
+                        return;
+                    }
+                    entry.setAttempts(entry.getAttempts() + 1);
+                    entry.setNextAttemptAt(new Date(now.getTime() + retryDelay(entry.getAttempts()).toMillis()));
+                })))
+                .onItem().invoke(entries -> entries.stream().filter(CancellationOutbox::isParked).forEach(entry -> {
+                    LOG.warnf("Parked cancellation of flight %d after %d attempts", entry.getFlightId(), entry.getAttempts());
+                    parked.increment();
+                }));
+    }
+
+    /**
+     * Passenger service identifies flights by an int id
+     */
+    private static boolean isSendable(long flightId) {
+        return flightId >= Integer.MIN_VALUE && flightId <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return ids of acknowledged entries, empty if the request failed
+     */
+    private Uni<List<Long>> deliver(String reason, List<CancellationOutbox> entries) {
+        var flightIds = new LinkedHashSet<Long>();
+        entries.forEach(entry -> flightIds.add(entry.getFlightId()));
+        return Uni.createFrom().deferred(() -> {
+                    var request = FlightsCancellationRequest.newBuilder().setReason(reason);
+                    flightIds.forEach(id -> request.addIds(Math.toIntExact(id)));
+                    return passengerCancellationClient.cancelFlights(request.build());
+                })
+                .onItem().transform(response -> {
+                    Set<Long> cancelled = response.getResultsList().stream()
+                            .filter(result -> result.getStatus() == FlightCancellationResponseStatus.Cancelled)
+                            .map(FlightCancellationResult::getId)
+                            .map(Integer::longValue)
+                            .collect(Collectors.toSet());
+                    return entries.stream()
+                            .filter(entry -> cancelled.contains(entry.getFlightId()))
+                            .map(CancellationOutbox::getId)
+                            .toList();
+                })
+                .onFailure().recoverWithItem(failure -> {
+                    LOG.warnf(failure, "Failed to deliver cancellation of %d flights, will retry", flightIds.size());
+                    return List.of();
+                });
+    }
+
+    private Duration retryDelay(int attempts) {
+        var delay = retryDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxRetryDelay) > 0 ? maxRetryDelay : delay;
+    }
+}
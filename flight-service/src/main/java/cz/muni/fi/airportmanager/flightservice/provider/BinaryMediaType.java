@@ -0,0 +1,20 @@
+package cz.muni.fi.airportmanager.flightservice.provider;
+
+/**
+ * Binary media types served next to JSON for clients that read large payloads
+ */
+public final class BinaryMediaType {
+
+    /**
+     * Payloads defined in {@code flightpayload.proto}
+     */
+    public static final String APPLICATION_PROTOBUF = "application/x-protobuf";
+
+    /**
+     * Same structure as JSON, encoded as CBOR
+     */
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    private BinaryMediaType() {
+    }
+}
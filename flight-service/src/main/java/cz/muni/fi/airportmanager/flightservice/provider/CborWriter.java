@@ -0,0 +1,72 @@
+package cz.muni.fi.airportmanager.flightservice.provider;
+
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotAcceptableException;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a flight, a list of flights or a list of flights with selected fields as CBOR,
+ * with the same structure as the JSON written by Jackson
+ */
+@Provider
+@Produces(BinaryMediaType.APPLICATION_CBOR)
+public class CborWriter implements MessageBodyWriter<Object> {
+
+    private final ObjectMapper mapper;
+
+    /**
+     * @param objectMapper mapper configured by Quarkus, its configuration and modules are used for CBOR too
+     */
+    @Inject
+    public CborWriter(ObjectMapper objectMapper) {
+        mapper = objectMapper.copyWith(CBORFactory.builder()
+                // the entity stream is closed by the server
+                .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .build());
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        if (FlightDto.class.isAssignableFrom(type)) {
+            return true;
+        }
+        if (!List.class.isAssignableFrom(type) || !(genericType instanceof ParameterizedType parameterized)) {
+            return false;
+        }
+        var element = parameterized.getActualTypeArguments()[0];
+        // lists declared as List<?> are checked element by element when written
+        return element instanceof WildcardType
+                || element instanceof Class<?> elementClass && FlightDto.class.isAssignableFrom(elementClass)
+                || element instanceof ParameterizedType elementType && elementType.getRawType() == Map.class;
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        if (entity instanceof List<?> list) {
+            for (var flight : list) {
+                if (!(flight instanceof FlightDto) && !(flight instanceof Map<?, ?>)) {
+                    throw new NotAcceptableException("Only flights can be written as CBOR");
+                }
+            }
+        }
+        mapper.writerFor(mapper.constructType(genericType != null ? genericType : type)).writeValue(entityStream, entity);
+    }
+}
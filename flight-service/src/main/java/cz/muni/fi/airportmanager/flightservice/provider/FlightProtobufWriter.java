@@ -0,0 +1,97 @@
+package cz.muni.fi.airportmanager.flightservice.provider;
+
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import cz.muni.fi.airportmanager.proto.FlightListPayload;
+import cz.muni.fi.airportmanager.proto.FlightPayload;
+import cz.muni.fi.airportmanager.proto.FlightPayloadStatus;
+import jakarta.ws.rs.NotAcceptableException;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.List;
+
+/**
+ * Writes a flight as {@link FlightPayload} and a list of flights as {@link FlightListPayload}
+ */
+@Provider
+@Produces(BinaryMediaType.APPLICATION_PROTOBUF)
+public class FlightProtobufWriter implements MessageBodyWriter<Object> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        if (FlightDto.class.isAssignableFrom(type)) {
+            return true;
+        }
+        if (!List.class.isAssignableFrom(type) || !(genericType instanceof ParameterizedType parameterized)) {
+            return false;
+        }
+        var element = parameterized.getActualTypeArguments()[0];
+        // lists declared as List<?> are checked element by element when written
+        return element instanceof WildcardType
+                || element instanceof Class<?> elementClass && FlightDto.class.isAssignableFrom(elementClass);
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        if (entity instanceof FlightDto flight) {
+            toPayload(flight).writeTo(entityStream);
+            return;
+        }
+        var list = FlightListPayload.newBuilder();
+        for (var flight : (List<?>) entity) {
+            if (!(flight instanceof FlightDto dto)) {
+                throw new NotAcceptableException("Only flights can be written as protobuf");
+            }
+            list.addFlights(toPayload(dto));
+        }
+        list.build().writeTo(entityStream);
+    }
+
+    static FlightPayload toPayload(FlightDto flight) {
+        var payload = FlightPayload.newBuilder()
+                .setId(flight.id)
+                .setCapacity(flight.capacity)
+                .setStatus(toPayload(flight.status))
+                .setVersion(flight.version);
+        if (flight.name != null) {
+            payload.setName(flight.name);
+        }
+        if (flight.airportFrom != null) {
+            payload.setAirportFrom(flight.airportFrom);
+        }
+        if (flight.airportTo != null) {
+            payload.setAirportTo(flight.airportTo);
+        }
+        if (flight.departureTime != null) {
+            payload.setDepartureTime(flight.departureTime.getTime());
+        }
+        if (flight.arrivalTime != null) {
+            payload.setArrivalTime(flight.arrivalTime.getTime());
+        }
+        return payload.build();
+    }
+
+    private static FlightPayloadStatus toPayload(FlightStatus status) {
+        if (status == null) {
+            return FlightPayloadStatus.FlightPayloadUnspecified;
+        }
+        return switch (status) {
+            case ACTIVE -> FlightPayloadStatus.FlightPayloadActive;
+            case BOARDING -> FlightPayloadStatus.FlightPayloadBoarding;
+            case CANCELLED -> FlightPayloadStatus.FlightPayloadCancelled;
+            case DELAYED -> FlightPayloadStatus.FlightPayloadDelayed;
+            case COMPLETED -> FlightPayloadStatus.FlightPayloadCompleted;
+        };
+    }
+}
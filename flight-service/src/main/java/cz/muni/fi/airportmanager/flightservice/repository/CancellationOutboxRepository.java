@@ -0,0 +1,51 @@
+package cz.muni.fi.airportmanager.flightservice.repository;
+
+import cz.muni.fi.airportmanager.flightservice.entity.CancellationOutbox;
+import io.quarkus.hibernate.reactive.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@ApplicationScoped
+public class CancellationOutboxRepository implements PanacheRepository<CancellationOutbox> {
+
+    /**
+     * Lock timeout hint value that skips rows locked by another transaction instead of waiting for them
+     */
+    private static final int SKIP_LOCKED = -2;
+
+    /**
+     * Find the oldest entries due for delivery that are not parked and lock them.
+     * Entries locked by another transaction are skipped, so concurrent relays never claim the same entry.
+     * Must be called in a transaction.
+     *
+     * @param now   current date
+     * @param limit maximum number of entries
+     * @return entries ordered by id
+     */
+    public Uni<List<CancellationOutbox>> lockDue(Date now, int limit) {
+        return find("parked = false and nextAttemptAt <= ?1", Sort.by("id"), now)
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .withHint("jakarta.persistence.lock.timeout", SKIP_LOCKED)
+                .range(0, limit - 1)
+                .list();
+    }
+
+    /**
+     * Delete delivered entries
+     *
+     * @param ids ids of entries
+     * @return number of deleted entries
+     */
+    public Uni<Long> deleteByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Uni.createFrom().item(0L);
+        }
+        return delete("id in ?1", ids);
+    }
+}
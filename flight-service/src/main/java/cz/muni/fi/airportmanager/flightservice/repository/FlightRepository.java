@@ -1,18 +1,216 @@
 package cz.muni.fi.airportmanager.flightservice.repository;
 
 import cz.muni.fi.airportmanager.flightservice.entity.Flight;
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightFilter;
 import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
 import io.quarkus.hibernate.reactive.panache.PanacheRepository;
+import io.quarkus.hibernate.reactive.panache.common.WithSession;
 import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class FlightRepository implements PanacheRepository<Flight> {
 
+    /**
+     * Select clause projecting flights directly into {@link FlightDto}, the flights are not loaded into the session
+     */
+    private static final String DTO_PROJECTION = "select new " + FlightDto.class.getName()
+            + "(f.id, f.name, f.airportFrom, f.airportTo, f.departureTime, f.arrivalTime, f.capacity, f.status, f.version) from Flight f";
+
+    /**
+     * Fields of flights that can be sorted by and selected in list queries
+     */
+    private static final List<String> LIST_FIELDS = List.of("id", "name", "airportFrom", "airportTo", "departureTime", "arrivalTime", "capacity", "status", "version");
+
+    /**
+     * Find a page of flights ordered by id, starting right after the given id (keyset pagination)
+     *
+     * @param afterId id of the last flight of the previous page, the page starts with the next one
+     * @param limit   maximum number of flights in the page
+     * @return list of flights
+     */
+    @WithSession
+    public Uni<List<FlightDto>> findPage(long afterId, int limit) {
+        return getSession().chain(session -> session
+                .createQuery(DTO_PROJECTION + " where f.id > :afterId order by f.id", FlightDto.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+
+    /**
+     * Find a page of flights matching the filter
+     *
+     * @param filter  filter of the flights
+     * @param sort    comma separated fields to sort by, prefixed with {@code -} for descending order, the flights are ordered by id if {@code null}
+     * @param afterId id of the last flight of the previous page, only allowed when ordered by id
+     * @param offset  number of flights skipped, used for pages of sorted flights
+     * @param limit   maximum number of flights in the page
+     * @return list of flights, failed with {@link IllegalArgumentException} if a sort field is unknown
+     */
+    @WithSession
+    public Uni<List<FlightDto>> findPage(FlightFilter filter, String sort, long afterId, int offset, int limit) {
+        return Uni.createFrom().item(() -> listQuery(filter, sort, afterId))
+                .chain(query -> getSession().chain(session -> {
+                    var select = session.createQuery(DTO_PROJECTION + query.whereClause() + query.orderByClause("id"), FlightDto.class);
+                    query.getParameters().forEach(select::setParameter);
+                    return select.setFirstResult(offset).setMaxResults(limit).getResultList();
+                }));
+    }
+
+    /**
+     * Find a page of flights matching the filter, only the selected fields are read
+     *
+     * @param filter  filter of the flights
+     * @param fields  comma separated fields to select
+     * @param sort    comma separated fields to sort by, prefixed with {@code -} for descending order, the flights are ordered by id if {@code null}
+     * @param afterId id of the last flight of the previous page, only allowed when ordered by id
+     * @param offset  number of flights skipped, used for pages of sorted flights
+     * @param limit   maximum number of flights in the page
+     * @return list of maps from field name to value, failed with {@link IllegalArgumentException} if a field is unknown
+     */
+    @WithSession
+    public Uni<List<Map<String, Object>>> findPageFields(FlightFilter filter, String fields, String sort, long afterId, int offset, int limit) {
+        return Uni.createFrom().item(() -> listQuery(filter, sort, afterId).select(fields))
+                .chain(query -> getSession().chain(session -> {
+                    var select = session.createQuery("select " + query.selectClause() + " from Flight f" + query.whereClause() + query.orderByClause("id"), Object[].class);
+                    query.getParameters().forEach(select::setParameter);
+                    return select.setFirstResult(offset).setMaxResults(limit).getResultList()
+                            .onItem().transform(query::toMaps);
+                }));
+    }
+
+    private static ListQuery listQuery(FlightFilter filter, String sort, long afterId) {
+        var query = ListQuery.of("f", LIST_FIELDS)
+                .where("f.status = :status", "status", filter.status)
+                .where("f.airportFrom = :airportFrom", "airportFrom", filter.airportFrom)
+                .where("f.airportTo = :airportTo", "airportTo", filter.airportTo)
+                .where("f.departureTime >= :departAfter", "departAfter", filter.departAfter)
+                .where("f.departureTime < :departBefore", "departBefore", filter.departBefore)
+                .where("f.id > :afterId", "afterId", afterId > 0 ? afterId : null)
+                .orderBy(sort);
+        if (query.isSorted() && afterId > 0) {
+            throw new IllegalArgumentException("Cursor can only be used with flights ordered by id");
+        }
+        return query;
+    }
+
+    /**
+     * Persist the flight and read back the version assigned by the database
+     *
+     * @param flight flight to persist
+     * @return persisted flight with its version
+     */
+    public Uni<Flight> persistWithVersion(Flight flight) {
+        // the version is not written by Hibernate, the inserted row is read again to get it
+        return persist(flight).call(() -> getSession().chain(session -> session.flush()
+                .chain(() -> session.refresh(flight))));
+    }
+
+    /**
+     * Persist the flights and read back the versions assigned by the database
+     *
+     * @param flights flights to persist
+     * @return versions of the persisted flights by flight id
+     */
+    public Uni<Map<Long, Long>> persistWithVersions(List<Flight> flights) {
+        // the versions are not written by Hibernate, they are selected with one query once the rows are inserted
+        return persist(flights).chain(() -> getSession().chain(session -> session.flush()
+                .chain(() -> session.createQuery("select f.id, f.version from Flight f where f.id in :ids", Object[].class)
+                        .setParameter("ids", flights.stream().map(Flight::getId).toList())
+                        .getResultList()
+                        .onItem().transform((List<Object[]> rows) -> rows.stream()
+                                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]))))));
+    }
+
+    /**
+     * Find flight by id without loading it into the session
+     *
+     * @param id flight id
+     * @return flight or {@code null} if flight with given id does not exist
+     */
+    @WithSession
+    public Uni<FlightDto> findDtoById(long id) {
+        return getSession().chain(session -> session
+                .createQuery(DTO_PROJECTION + " where f.id = :id", FlightDto.class)
+                .setParameter("id", id)
+                .getSingleResultOrNull());
+    }
+
+    /**
+     * Find version of the flight without loading it
+     *
+     * @param id flight id
+     * @return version or {@code null} if flight with given id does not exist
+     */
+    @WithSession
+    public Uni<Long> findVersion(long id) {
+        return getSession().chain(session -> session
+                .createQuery("select f.version from Flight f where f.id = :id", Long.class)
+                .setParameter("id", id)
+                .getSingleResultOrNull());
+    }
+
+    /**
+     * Find version of the list of all flights.
+     * Versions come from one sequence, so the highest version changes when a flight is created or changed,
+     * and the number of flights changes when a flight is deleted.
+     *
+     * @return highest version and number of flights joined with a dash
+     */
+    @WithSession
+    public Uni<String> findListVersion() {
+        return getSession().chain(session -> session
+                .createQuery("select coalesce(max(f.version), 0), count(f) from Flight f", Object[].class)
+                .getSingleResult()
+                .onItem().transform(row -> row[0] + "-" + row[1]));
+    }
+
+    /**
+     * Count flights grouped by status, departure airport and hour of day of departure
+     *
+     * @return rows of status, departure airport, hour and number of flights
+     */
+    @WithSession
+    public Uni<List<Object[]>> countByStatusAirportAndHour() {
+        return getSession().chain(session -> session
+                .createQuery("select f.status, f.airportFrom, extract(hour from f.departureTime), count(f) from Flight f"
+                        + " group by f.status, f.airportFrom, extract(hour from f.departureTime)", Object[].class)
+                .getResultList());
+    }
+
+    /**
+     * Stream all flights ordered by id.
+     * Flights are fetched page by page using the id of the last emitted flight as a cursor,
+     * so only one page is held in memory at a time.
+     *
+     * @param chunkSize number of flights fetched from the database at once
+     * @return stream of all flights
+     */
+    public Multi<FlightDto> streamAll(int chunkSize) {
+        return Multi.createBy().repeating()
+                .uni(AtomicLong::new, cursor -> findPage(cursor.get(), chunkSize)
+                        .onItem().invoke(flights -> {
+                            if (!flights.isEmpty()) {
+                                cursor.set(flights.get(flights.size() - 1).id);
+                            }
+                        }))
+                .until(List::isEmpty)
+                .onItem().disjoint();
+    }
+
     /**
      * Find all future flights that are scheduled to depart in the future
      *
@@ -58,21 +256,107 @@ public class FlightRepository implements PanacheRepository<Flight> {
     }
 
     /**
-     * Change status of the flight
+     * Change status of the flight with a single update, without loading the flight
      *
      * @param flightId  flight id
      * @param newStatus new status
-     * @throws IllegalArgumentException if flight with given id does not exist
+     * @return number of updated flights, 0 if flight with given id does not exist
+     */
+    @WithTransaction
+    public Uni<Integer> changeStatus(Long flightId, FlightStatus newStatus) {
+        return update("status = ?1 where id = ?2", newStatus, flightId);
+    }
+
+    /**
+     * Change status of multiple flights with a single update
+     *
+     * @param flightIds ids of flights
+     * @param newStatus new status
+     * @return ids of flights that exist and had their status changed
      */
     @WithTransaction
-    public Uni<Void> changeStatus(Long flightId, FlightStatus newStatus) {
-        return findById(flightId)
-                .onItem().transformToUni(flight -> {
-                    if (flight == null) {
-                        return Uni.createFrom().failure(new IllegalArgumentException("Flight with id " + flightId + " does not exist"));
-                    }
-                    flight.setStatus(newStatus);
-                    return persist(flight).replaceWithVoid();
-                });
+    public Uni<List<Long>> changeStatus(Collection<Long> flightIds, FlightStatus newStatus) {
+        if (flightIds.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        return updateStatus("id in (:ids)", Map.of("ids", flightIds), newStatus);
+    }
+
+    /**
+     * Change status of those of the given flights that currently have one of the given statuses
+     *
+     * @param flightIds       ids of flights
+     * @param currentStatuses statuses the flights may have to be changed
+     * @param newStatus       new status
+     * @return ids of flights that had their status changed
+     */
+    @WithTransaction
+    public Uni<List<Long>> changeStatus(Collection<Long> flightIds, Collection<FlightStatus> currentStatuses, FlightStatus newStatus) {
+        if (flightIds.isEmpty() || currentStatuses.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        return updateStatus("id in (:ids) and status in (:statuses)", Map.of(
+                "ids", flightIds,
+                "statuses", currentStatuses.stream().map(FlightRepository::toColumn).toList()), newStatus);
+    }
+
+    /**
+     * Change status of all flights matching the given criteria with a single update.
+     * Criteria that are {@code null} are not applied, at least one criterion must be given.
+     *
+     * @param currentStatus   current status of the flights
+     * @param airportFrom     departure airport of the flights
+     * @param departureBefore flights departing before this date
+     * @param newStatus       new status
+     * @return ids of flights that had their status changed
+     * @throws IllegalArgumentException if no criterion is given
+     */
+    @WithTransaction
+    public Uni<List<Long>> changeStatus(FlightStatus currentStatus, String airportFrom, Date departureBefore, FlightStatus newStatus) {
+        var conditions = new ArrayList<String>();
+        var parameters = new HashMap<String, Object>();
+        if (currentStatus != null) {
+            conditions.add("status = :currentStatus");
+            parameters.put("currentStatus", toColumn(currentStatus));
+        }
+        if (airportFrom != null) {
+            conditions.add("airport_from = :airportFrom");
+            parameters.put("airportFrom", airportFrom);
+        }
+        if (departureBefore != null) {
+            conditions.add("departure_time < :departureBefore");
+            parameters.put("departureBefore", departureBefore);
+        }
+        if (conditions.isEmpty()) {
+            return Uni.createFrom().failure(new IllegalArgumentException("At least one criterion must be given"));
+        }
+        return updateStatus(String.join(" and ", conditions), parameters, newStatus);
+    }
+
+    /**
+     * Change status of the flights matching the condition with a single {@code update ... returning} statement,
+     * so the returned ids are exactly the flights that were updated, even when the flights are changed concurrently
+     *
+     * @param condition  SQL condition on the columns of the flight table
+     * @param parameters parameters of the condition
+     * @param newStatus  new status
+     * @return ids of flights that had their status changed
+     */
+    private Uni<List<Long>> updateStatus(String condition, Map<String, Object> parameters, FlightStatus newStatus) {
+        // flights persisted in this session must be flushed to be seen by the statement
+        return getSession().chain(session -> session.flush()
+                .chain(() -> {
+                    var update = session.createNativeQuery("update flight set status = :newStatus where " + condition + " returning id", Long.class)
+                            .setParameter("newStatus", toColumn(newStatus));
+                    parameters.forEach(update::setParameter);
+                    return update.getResultList();
+                }));
+    }
+
+    /**
+     * @return value of the status column, statuses are stored as their ordinal
+     */
+    private static short toColumn(FlightStatus status) {
+        return (short) status.ordinal();
     }
 }
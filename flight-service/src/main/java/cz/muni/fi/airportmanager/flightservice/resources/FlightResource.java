@@ -1,20 +1,49 @@
 package cz.muni.fi.airportmanager.flightservice.resources;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.muni.fi.airportmanager.flightservice.event.FlightChangeBroadcaster;
+import cz.muni.fi.airportmanager.flightservice.idempotency.IdempotencyStore;
+import cz.muni.fi.airportmanager.flightservice.model.CacheStatsDto;
+import cz.muni.fi.airportmanager.flightservice.model.CancelFlightsDto;
+import cz.muni.fi.airportmanager.flightservice.model.ChangeFlightStatusDto;
+import cz.muni.fi.airportmanager.flightservice.model.ChangeFlightStatusResultDto;
 import cz.muni.fi.airportmanager.flightservice.model.CreateFlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightCancellationResultDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightChangeDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightImportResultDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatsDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import cz.muni.fi.airportmanager.flightservice.model.ItineraryDto;
 import cz.muni.fi.airportmanager.flightservice.model.example.Examples;
+import cz.muni.fi.airportmanager.flightservice.provider.BinaryMediaType;
 import cz.muni.fi.airportmanager.flightservice.service.FlightService;
 import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightFilter;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Variant;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.ExampleObject;
@@ -22,8 +51,21 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.reactive.RestHeader;
 import org.jboss.resteasy.reactive.RestResponse;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import org.jboss.resteasy.reactive.common.util.RestMediaType;
 
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
 
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
@@ -38,33 +80,467 @@ public class FlightResource {
     @Inject
     FlightService flightService;
 
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    IdempotencyStore idempotencyStore;
+
+    @Inject
+    FlightChangeBroadcaster flightChangeBroadcaster;
+
+    @ConfigProperty(name = "flight.stream.heartbeat-interval", defaultValue = "15S")
+    Duration heartbeatInterval;
+
+    /**
+     * Maximum number of changes buffered for a slow subscriber, the subscription fails when it is exceeded
+     */
+    private static final int STREAM_BUFFER_SIZE = 1000;
+
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int MAX_BULK_SIZE = 1000;
+
+    private static final int MAX_ITINERARY_LEGS = 4;
+
+    /**
+     * Media types of flights tagged with their version, JSON is used when the client accepts any of them
+     */
+    private static final List<Variant> VARIANTS = Variant.mediaTypes(
+            MediaType.APPLICATION_JSON_TYPE,
+            MediaType.valueOf(BinaryMediaType.APPLICATION_PROTOBUF),
+            MediaType.valueOf(BinaryMediaType.APPLICATION_CBOR)
+    ).build();
+
+    /**
+     * Tagged responses are negotiated by media type and may be compressed
+     */
+    private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+
+    /**
+     * Get a page of flights matching the filter.
+     * Without a sort order the flights are ordered by id and the next page starts after the last id,
+     * sorted flights are paged with an offset.
+     *
+     * @param after        id of the last flight of the previous page
+     * @param offset       number of flights skipped, only used with a sort order
+     * @param limit        maximum number of flights in the page
+     * @param status       status of the flights
+     * @param airportFrom  departure airport
+     * @param airportTo    arrival airport
+     * @param departAfter  flights departing at or after this time
+     * @param departBefore flights departing before this time
+     * @param sort         comma separated fields to sort by, prefixed with {@code -} for descending order
+     * @param fields       comma separated fields to return, all fields if not given, not available as protobuf
+     * @param request      request with the accepted media types and the conditional headers
+     * @return page of flights, tagged with the version of the list of all flights, the query and the media type
+     */
+    @GET
+    @Produces({APPLICATION_JSON, BinaryMediaType.APPLICATION_PROTOBUF, BinaryMediaType.APPLICATION_CBOR})
+    @Operation(summary = "Get a page of flights matching the filter")
+    @APIResponse(
+            responseCode = "200",
+            description = "Page of flights, the id of the last flight is the cursor of the next page",
+            content = @Content(
+                    mediaType = APPLICATION_JSON,
+                    schema = @Schema(implementation = FlightDto.class, required = true),
+                    examples = @ExampleObject(name = "flight", value = Examples.VALID_FLIGHT_LIST)
+            )
+    )
+    @APIResponse(
+            responseCode = "304",
+            description = "No flight was created, changed or deleted since the ETag of the same query and media type given in If-None-Match"
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "Invalid page limit or offset, unknown sort or selected field, or cursor used with a sort order"
+    )
+    @APIResponse(
+            responseCode = "406",
+            description = "No accepted media type, or selected fields requested as protobuf"
+    )
+    public Uni<RestResponse<List<?>>> list(
+            @Parameter(name = "after", description = "Id of the last flight of the previous page") @QueryParam("after") @DefaultValue("0") long after,
+            @Parameter(name = "offset", description = "Number of flights skipped, only used with a sort order") @QueryParam("offset") @DefaultValue("0") int offset,
+            @Parameter(name = "limit", description = "Maximum number of flights in the page (1 - " + MAX_PAGE_SIZE + ")") @QueryParam("limit") @DefaultValue("100") int limit,
+            @Parameter(name = "status", description = "Status of the flights") @QueryParam("status") FlightStatus status,
+            @Parameter(name = "airportFrom", description = "Departure airport") @QueryParam("airportFrom") String airportFrom,
+            @Parameter(name = "airportTo", description = "Arrival airport") @QueryParam("airportTo") String airportTo,
+            @Parameter(name = "departAfter", description = "Flights departing at or after this time (ISO-8601)") @QueryParam("departAfter") OffsetDateTime departAfter,
+            @Parameter(name = "departBefore", description = "Flights departing before this time (ISO-8601)") @QueryParam("departBefore") OffsetDateTime departBefore,
+            @Parameter(name = "sort", description = "Comma separated fields to sort by, prefixed with - for descending order, e.g. -departureTime,name") @QueryParam("sort") String sort,
+            @Parameter(name = "fields", description = "Comma separated fields to return, e.g. id,name,status") @QueryParam("fields") String fields,
+            @Context Request request) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE || offset < 0) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.BAD_REQUEST));
+        }
+        var variant = request.selectVariant(VARIANTS);
+        var projected = fields != null && !fields.isBlank();
+        if (variant == null || (projected && variant.getMediaType().isCompatible(MediaType.valueOf(BinaryMediaType.APPLICATION_PROTOBUF)))) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.NOT_ACCEPTABLE));
+        }
+        var filter = new FlightFilter();
+        filter.status = status;
+        filter.airportFrom = airportFrom;
+        filter.airportTo = airportTo;
+        filter.departAfter = departAfter == null ? null : Date.from(departAfter.toInstant());
+        filter.departBefore = departBefore == null ? null : Date.from(departBefore.toInstant());
+        var plain = filter.isEmpty() && !projected && (sort == null || sort.isBlank()) && offset == 0;
+        // pages of different queries have the same list version, the query is part of the tag
+        var query = digest(after, offset, limit, status, airportFrom, airportTo, departAfter, departBefore, sort, fields);
+        // the version is read before the page, so a change in between makes the tag older than the page, never newer
+        return flightService.getListVersion().chain(version -> {
+            var tag = etag(version + "-" + query, variant);
+            if (request.evaluatePreconditions(tag) != null) {
+                return Uni.createFrom().item(RestResponse.ResponseBuilder.<List<?>>notModified(tag).header(HttpHeaders.VARY, VARY).build());
+            }
+            Uni<? extends List<?>> page;
+            if (plain) {
+                page = flightService.listPage(after, limit);
+            } else if (projected) {
+                page = flightService.listPageFields(filter, fields, sort, after, offset, limit);
+            } else {
+                page = flightService.listPage(filter, sort, after, offset, limit);
+            }
+            return page
+                    .onItem().transform(flights -> RestResponse.ResponseBuilder.<List<?>>ok(flights)
+                            .type(variant.getMediaType())
+                            .tag(tag)
+                            .header(HttpHeaders.VARY, VARY)
+                            .build())
+                    .onFailure(IllegalArgumentException.class).recoverWithItem(RestResponse.status(Response.Status.BAD_REQUEST));
+        });
+    }
+
+    /**
+     * Import flights given as a JSON array
+     *
+     * @param flights flights to import
+     * @return number of imported flights and flights that were not imported
+     */
+    @POST
+    @Path("/batch")
+    @Produces(APPLICATION_JSON)
+    @Consumes(APPLICATION_JSON)
+    @Operation(summary = "Import flights given as a JSON array")
+    @APIResponse(
+            responseCode = "200",
+            description = "Number of imported flights and flights that were not imported",
+            content = @Content(
+                    mediaType = APPLICATION_JSON,
+                    schema = @Schema(implementation = FlightImportResultDto.class, required = true)
+            )
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "No flights given"
+    )
+    public Uni<RestResponse<FlightImportResultDto>> importFlights(List<CreateFlightDto> flights) {
+        if (flights == null) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.BAD_REQUEST));
+        }
+        return flightService.importFlights(flights)
+                .onItem().transform(result -> RestResponse.status(Response.Status.OK, result));
+    }
+
+    /**
+     * Import flights given as newline delimited JSON, one flight per line.
+     * The body is read line by line while the flights are imported, so only one chunk of flights is held in memory.
+     *
+     * @param body flights to import
+     * @return number of imported flights and flights that were not imported, lines that are not valid JSON are reported
+     */
+    @POST
+    @Path("/batch")
+    @Produces(APPLICATION_JSON)
+    @Consumes(RestMediaType.APPLICATION_NDJSON)
+    @Blocking
+    @Operation(summary = "Import flights given as newline delimited JSON")
+    @APIResponse(
+            responseCode = "200",
+            description = "Number of imported flights and flights that were not imported",
+            content = @Content(
+                    mediaType = APPLICATION_JSON,
+                    schema = @Schema(implementation = FlightImportResultDto.class, required = true)
+            )
+    )
+    public RestResponse<FlightImportResultDto> importFlightsNdjson(InputStream body) {
+        try (var lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)).lines()) {
+            var flights = lines.filter(line -> !line.isBlank())
+                    .map(this::readFlight)
+                    .iterator();
+            return RestResponse.status(Response.Status.OK, flightService.importFlights(flights));
+        }
+    }
+
+    private CreateFlightDto readFlight(String line) {
+        try {
+            return objectMapper.readValue(line, CreateFlightDto.class);
+        } catch (JsonProcessingException e) {
+            // reported as a malformed flight at its position in the batch
+            return null;
+        }
+    }
+
+    /**
+     * Stream all flights as newline delimited JSON
+     *
+     * @return stream of all flights
+     */
+    @GET
+    @Path("/export")
+    @Produces(RestMediaType.APPLICATION_NDJSON)
+    @RestStreamElementType(APPLICATION_JSON)
+    @Operation(summary = "Stream all flights as newline delimited JSON")
+    @APIResponse(
+            responseCode = "200",
+            description = "Stream of all flights ordered by id"
+    )
+    public Multi<FlightDto> export() {
+        return flightService.streamAll();
+    }
+
+    /**
+     * Search flights between two airports
+     *
+     * @param from         departure airport
+     * @param to           arrival airport
+     * @param departAfter  flights departing at or after this time
+     * @param departBefore flights departing before this time
+     * @param status       status of the flights
+     * @return list of flights ordered by departure time
+     */
+    @GET
+    @Path("/search")
+    @Produces(APPLICATION_JSON)
+    @Operation(summary = "Search flights between two airports")
+    @APIResponse(
+            responseCode = "200",
+            description = "List of flights ordered by departure time",
+            content = @Content(
+                    mediaType = APPLICATION_JSON,
+                    schema = @Schema(implementation = FlightDto.class, required = true),
+                    examples = @ExampleObject(name = "flight", value = Examples.VALID_FLIGHT_LIST)
+            )
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "Departure or arrival airport is missing"
+    )
+    public Uni<RestResponse<List<FlightDto>>> search(
+            @Parameter(name = "from", description = "Departure airport", required = true) @QueryParam("from") String from,
+            @Parameter(name = "to", description = "Arrival airport", required = true) @QueryParam("to") String to,
+            @Parameter(name = "departAfter", description = "Flights departing at or after this time") @QueryParam("departAfter") OffsetDateTime departAfter,
+            @Parameter(name = "departBefore", description = "Flights departing before this time") @QueryParam("departBefore") OffsetDateTime departBefore,
+            @Parameter(name = "status", description = "Status of the flights") @QueryParam("status") FlightStatus status) {
+        if (from == null || from.isBlank() || to == null || to.isBlank()) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.BAD_REQUEST));
+        }
+        return flightService.searchFlights(from, to,
+                        departAfter == null ? null : Date.from(departAfter.toInstant()),
+                        departBefore == null ? null : Date.from(departBefore.toInstant()),
+                        status)
+                .onItem().transform(flights -> RestResponse.status(Response.Status.OK, flights));
+    }
+
+    /**
+     * Search itineraries between two airports with the earliest arrival
+     *
+     * @param from                 departure airport
+     * @param to                   arrival airport
+     * @param departAfter          the first flight departs at or after this time, defaults to now
+     * @param maxLegs              maximum number of flights of an itinerary
+     * @param minConnectionMinutes minimum time between connecting flights in minutes
+     * @return itineraries ordered by number of legs, each arriving earlier than the previous one
+     */
+    @GET
+    @Path("/itineraries")
+    @Produces(APPLICATION_JSON)
+    @Operation(summary = "Search itineraries between two airports with the earliest arrival")
+    @APIResponse(
+            responseCode = "200",
+            description = "Itineraries ordered by number of legs, each arriving earlier than the previous one",
+            content = @Content(
+                    mediaType = APPLICATION_JSON,
+                    schema = @Schema(implementation = ItineraryDto.class, required = true)
+            )
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "Airport is missing, invalid number of legs or negative connection time"
+    )
+    public Uni<RestResponse<List<ItineraryDto>>> itineraries(
+            @Parameter(name = "from", description = "Departure airport", required = true) @QueryParam("from") String from,
+            @Parameter(name = "to", description = "Arrival airport", required = true) @QueryParam("to") String to,
+            @Parameter(name = "departAfter", description = "The first flight departs at or after this time, defaults to now") @QueryParam("departAfter") OffsetDateTime departAfter,
+            @Parameter(name = "maxLegs", description = "Maximum number of flights (1 - " + MAX_ITINERARY_LEGS + ")") @QueryParam("maxLegs") @DefaultValue("2") int maxLegs,
+            @Parameter(name = "minConnection", description = "Minimum time between connecting flights in minutes") @QueryParam("minConnection") @DefaultValue("45") int minConnectionMinutes) {
+        if (from == null || from.isBlank() || to == null || to.isBlank()
+                || maxLegs < 1 || maxLegs > MAX_ITINERARY_LEGS || minConnectionMinutes < 0) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.BAD_REQUEST));
+        }
+        return flightService.findItineraries(from, to, toDate(departAfter), Duration.ofMinutes(minConnectionMinutes), maxLegs)
+                .onItem().transform(itineraries -> RestResponse.status(Response.Status.OK, itineraries));
+    }
+
+    /**
+     * Stream changes of flights as server-sent events, with a comment sent as a heartbeat when there are no changes
+     *
+     * @param sse     server-sent events factory
+     * @param status  only changes of flights with this status after the change
+     * @param airport only changes of flights departing from or arriving to this airport
+     * @return stream of changes
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Operation(summary = "Stream changes of flights as server-sent events")
+    @APIResponse(
+            responseCode = "200",
+            description = "Stream of changes, the name of each event is the type of the change and the data is the change as JSON",
+            content = @Content(
+                    mediaType = MediaType.SERVER_SENT_EVENTS,
+                    schema = @Schema(implementation = FlightChangeDto.class)
+            )
+    )
+    public Multi<OutboundSseEvent> stream(
+            @Context Sse sse,
+            @Parameter(name = "status", description = "Only changes of flights with this status") @QueryParam("status") FlightStatus status,
+            @Parameter(name = "airport", description = "Only changes of flights departing from or arriving to this airport") @QueryParam("airport") String airport) {
+        var changes = flightChangeBroadcaster.changes()
+                .onOverflow().buffer(STREAM_BUFFER_SIZE)
+                .select().where(change -> change.matches(status, airport))
+                .onItem().transform(change -> sse.newEventBuilder()
+                        .id(Long.toString(change.sequence()))
+                        .name(change.type().name())
+                        .data(change.json())
+                        .build());
+        var heartbeats = Multi.createFrom().ticks().every(heartbeatInterval)
+                .onOverflow().drop()
+                .onItem().transform(tick -> sse.newEventBuilder().comment("heartbeat").build());
+        return Multi.createBy().merging().streams(changes, heartbeats);
+    }
+
+    /**
+     * Get flights that depart at or after the given time
+     *
+     * @param at point in time, defaults to now
+     * @return list of flights ordered by departure time
+     */
+    @GET
+    @Path("/future")
+    @Produces(APPLICATION_JSON)
+    @Operation(summary = "Get flights that depart at or after the given time")
+    @APIResponse(
+            responseCode = "200",
+            description = "List of future flights",
+            content = @Content(
+                    mediaType = APPLICATION_JSON,
+                    schema = @Schema(implementation = FlightDto.class, required = true),
+                    examples = @ExampleObject(name = "flight", value = Examples.VALID_FLIGHT_LIST)
+            )
+    )
+    public Uni<RestResponse<List<FlightDto>>> future(@Parameter(name = "at", description = "Point in time, defaults to now") @QueryParam("at") OffsetDateTime at) {
+        return flightService.findFutureFlights(toDate(at))
+                .onItem().transform(flights -> RestResponse.status(Response.Status.OK, flights));
+    }
+
+    /**
+     * Get flights that departed but have not arrived yet at the given time
+     *
+     * @param at point in time, defaults to now
+     * @return list of flights ordered by departure time
+     */
+    @GET
+    @Path("/ongoing")
+    @Produces(APPLICATION_JSON)
+    @Operation(summary = "Get flights that departed but have not arrived yet at the given time")
+    @APIResponse(
+            responseCode = "200",
+            description = "List of ongoing flights",
+            content = @Content(
+                    mediaType = APPLICATION_JSON,
+                    schema = @Schema(implementation = FlightDto.class, required = true),
+                    examples = @ExampleObject(name = "flight", value = Examples.VALID_FLIGHT_LIST)
+            )
+    )
+    public Uni<RestResponse<List<FlightDto>>> ongoing(@Parameter(name = "at", description = "Point in time, defaults to now") @QueryParam("at") OffsetDateTime at) {
+        return flightService.findOngoingFlights(toDate(at))
+                .onItem().transform(flights -> RestResponse.status(Response.Status.OK, flights));
+    }
 
     /**
-     * Get list of all flights
+     * Get flights that arrived before the given time
      *
-     * @return list of all flights
+     * @param at point in time, defaults to now
+     * @return list of flights ordered by arrival time
      */
     @GET
+    @Path("/past")
     @Produces(APPLICATION_JSON)
-    @Operation(summary = "Get list of all flights")
+    @Operation(summary = "Get flights that arrived before the given time")
     @APIResponse(
             responseCode = "200",
-            description = "Get list of all flights",
+            description = "List of past flights",
             content = @Content(
                     mediaType = APPLICATION_JSON,
                     schema = @Schema(implementation = FlightDto.class, required = true),
                     examples = @ExampleObject(name = "flight", value = Examples.VALID_FLIGHT_LIST)
             )
     )
-    public Uni<RestResponse<List<FlightDto>>> list() {
-        return flightService.listAll()
+    public Uni<RestResponse<List<FlightDto>>> past(@Parameter(name = "at", description = "Point in time, defaults to now") @QueryParam("at") OffsetDateTime at) {
+        return flightService.findPastFlights(toDate(at))
                 .onItem().transform(flights -> RestResponse.status(Response.Status.OK, flights));
     }
 
+    /**
+     * Get hit, miss and eviction counters of the flight cache
+     *
+     * @return cache counters
+     */
+    @GET
+    @Path("/cache-stats")
+    @Produces(APPLICATION_JSON)
+    @Operation(summary = "Get counters of the flight cache")
+    @APIResponse(
+            responseCode = "200",
+            description = "Hit, miss and eviction counters of the flight cache",
+            content = @Content(
+                    mediaType = APPLICATION_JSON,
+                    schema = @Schema(implementation = CacheStatsDto.class, required = true)
+            )
+    )
+    public RestResponse<CacheStatsDto> cacheStats() {
+        return RestResponse.status(Response.Status.OK, flightService.getCacheStats());
+    }
+
+    /**
+     * Get number of flights by status, departure airport and hour of departure
+     *
+     * @return flight counters
+     */
+    @GET
+    @Path("/stats")
+    @Produces(APPLICATION_JSON)
+    @Operation(summary = "Get number of flights by status, departure airport and hour of departure")
+    @APIResponse(
+            responseCode = "200",
+            description = "Flight counters, kept in memory and updated with every change of flights",
+            content = @Content(
+                    mediaType = APPLICATION_JSON,
+                    schema = @Schema(implementation = FlightStatsDto.class, required = true)
+            )
+    )
+    public RestResponse<FlightStatsDto> stats() {
+        return RestResponse.status(Response.Status.OK, flightService.getStatistics());
+    }
+
     /**
      * Create a new flight
      *
-     * @param flight flight to create.
+     * @param flight         flight to create.
+     * @param idempotencyKey optional key, retries with the same key get the response of the first request
      * @return created flight
      */
     @POST
@@ -80,26 +556,43 @@ public class FlightResource {
                     examples = @ExampleObject(name = "flight", value = Examples.VALID_FLIGHT)
             )
     )
+    @APIResponse(
+            responseCode = "400",
+            description = "Idempotency key is too long"
+    )
     @APIResponse(
             responseCode = "409",
             description = "Conflict"
     )
-    public Uni<RestResponse<FlightDto>> create(CreateFlightDto flight) {
-        return flightService.createFlight(flight)
+    @APIResponse(
+            responseCode = "422",
+            description = "Idempotency key was already used for a different flight"
+    )
+    public Uni<RestResponse<FlightDto>> create(
+            CreateFlightDto flight,
+            @Parameter(name = IdempotencyStore.HEADER, description = "Repeated requests with the same key create the flight only once")
+            @RestHeader(IdempotencyStore.HEADER) String idempotencyKey
+    ) {
+        if (idempotencyKey != null && idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.BAD_REQUEST));
+        }
+        return idempotencyStore.execute("create", idempotencyKey, flight, () -> flightService.createFlight(flight)
                 .onItem().transform(newFlight -> RestResponse.status(Response.Status.CREATED, newFlight))
-                .onFailure(IllegalArgumentException.class).recoverWithItem(RestResponse.status(Response.Status.CONFLICT));
+                .onFailure(IllegalArgumentException.class).recoverWithItem(RestResponse.status(Response.Status.CONFLICT)));
     }
 
 
     /**
      * Get flight by id
      *
-     * @param id id of flight
-     * @return flight with given id
+     * @param id          id of flight
+     * @param ifNoneMatch ETag of the flight the client already has
+     * @param request     request with the accepted media types and the conditional headers
+     * @return flight with given id, tagged with its version and the media type
      */
     @GET
     @Path("/{id}")
-    @Produces(APPLICATION_JSON)
+    @Produces({APPLICATION_JSON, BinaryMediaType.APPLICATION_PROTOBUF, BinaryMediaType.APPLICATION_CBOR})
     @Operation(summary = "Get flight by id")
     @APIResponse(
             responseCode = "200",
@@ -110,13 +603,45 @@ public class FlightResource {
                     examples = @ExampleObject(name = "flight", value = Examples.VALID_FLIGHT)
             )
     )
+    @APIResponse(
+            responseCode = "304",
+            description = "Flight has not changed since the ETag of the same media type given in If-None-Match"
+    )
     @APIResponse(
             responseCode = "404",
             description = "Flight with given id does not exist"
     )
-    public Uni<RestResponse<FlightDto>> get(long id) {
+    @APIResponse(
+            responseCode = "406",
+            description = "No accepted media type"
+    )
+    public Uni<RestResponse<FlightDto>> get(long id, @RestHeader(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch, @Context Request request) {
+        var variant = request.selectVariant(VARIANTS);
+        if (variant == null) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.NOT_ACCEPTABLE));
+        }
+        if (ifNoneMatch == null) {
+            return getTagged(id, variant);
+        }
+        // only the version is looked up, the flight is not loaded unless it has changed
+        return flightService.getFlightVersion(id).chain(version -> {
+            if (version != null) {
+                var tag = etag(Long.toString(version), variant);
+                if (request.evaluatePreconditions(tag) != null) {
+                    return Uni.createFrom().item(RestResponse.ResponseBuilder.<FlightDto>notModified(tag).header(HttpHeaders.VARY, VARY).build());
+                }
+            }
+            return getTagged(id, variant);
+        });
+    }
+
+    private Uni<RestResponse<FlightDto>> getTagged(long id, Variant variant) {
         return flightService.getFlight(id)
-                .onItem().transform(flight -> RestResponse.status(Response.Status.OK, flight))
+                .onItem().transform(flight -> RestResponse.ResponseBuilder.ok(flight)
+                        .type(variant.getMediaType())
+                        .tag(etag(Long.toString(flight.version), variant))
+                        .header(HttpHeaders.VARY, VARY)
+                        .build())
                 .onFailure(IllegalArgumentException.class).recoverWithItem(RestResponse.status(Response.Status.NOT_FOUND));
     }
 
@@ -165,6 +690,9 @@ public class FlightResource {
 
     /**
      * Cancel flight
+     *
+     * @param id             id of flight
+     * @param idempotencyKey optional key, retries with the same key get the response of the first request
      */
     @PUT
     @Path("/{id}/cancel")
@@ -173,19 +701,131 @@ public class FlightResource {
             responseCode = "200",
             description = "Flight cancelled"
     )
+    @APIResponse(
+            responseCode = "400",
+            description = "Idempotency key is too long"
+    )
     @APIResponse(
             responseCode = "404",
             description = "Flight with given id does not exist"
     )
-    public Uni<RestResponse<Object>> cancel(@Parameter(name = "id", required = true) @PathParam("id") long id) {
-        return flightService.cancelFlight(id)
+    @APIResponse(
+            responseCode = "422",
+            description = "Idempotency key was already used for a different flight"
+    )
+    public Uni<RestResponse<Object>> cancel(
+            @Parameter(name = "id", required = true) @PathParam("id") long id,
+            @Parameter(name = IdempotencyStore.HEADER, description = "Repeated requests with the same key cancel the flight only once")
+            @RestHeader(IdempotencyStore.HEADER) String idempotencyKey
+    ) {
+        if (idempotencyKey != null && idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.BAD_REQUEST));
+        }
+        return idempotencyStore.execute("cancel", idempotencyKey, id, () -> flightService.cancelFlight(id)
                 .onItem().transform(wasCancelled -> {
                     if (Boolean.TRUE.equals(wasCancelled)) {
                         return RestResponse.status(Response.Status.OK);
                     }
                     return RestResponse.status(Response.Status.NOT_FOUND);
-                });
+                }));
     }
 
-}
+    /**
+     * Cancel multiple flights at once
+     *
+     * @param request ids of flights to cancel and reason of the cancellation
+     * @return result of the cancellation of each flight
+     */
+    @PUT
+    @Path("/cancel")
+    @Produces(APPLICATION_JSON)
+    @Consumes(APPLICATION_JSON)
+    @Operation(summary = "Cancel multiple flights")
+    @APIResponse(
+            responseCode = "200",
+            description = "Result of the cancellation of each flight",
+            content = @Content(
+                    mediaType = APPLICATION_JSON,
+                    schema = @Schema(implementation = FlightCancellationResultDto.class, required = true)
+            )
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "No flight ids or more than " + MAX_BULK_SIZE + " flight ids"
+    )
+    public Uni<RestResponse<List<FlightCancellationResultDto>>> cancelAll(CancelFlightsDto request) {
+        if (request == null || request.ids == null || request.ids.isEmpty() || request.ids.size() > MAX_BULK_SIZE) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.BAD_REQUEST));
+        }
+        return flightService.cancelFlights(request.ids, request.reason)
+                .onItem().transform(results -> RestResponse.status(Response.Status.OK, results));
+    }
+
+    /**
+     * Change status of all flights matching the criteria
+     *
+     * @param request criteria of the flights and their new status
+     * @return number of flights that had their status changed
+     */
+    @PUT
+    @Path("/status")
+    @Produces(APPLICATION_JSON)
+    @Consumes(APPLICATION_JSON)
+    @Operation(summary = "Change status of all flights matching the criteria")
+    @APIResponse(
+            responseCode = "200",
+            description = "Number of flights that had their status changed",
+            content = @Content(
+                    mediaType = APPLICATION_JSON,
+                    schema = @Schema(implementation = ChangeFlightStatusResultDto.class, required = true)
+            )
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "No new status or no criteria"
+    )
+    public Uni<RestResponse<ChangeFlightStatusResultDto>> changeStatus(ChangeFlightStatusDto request) {
+        if (request == null || request.newStatus == null
+                || (request.status == null && request.airportFrom == null && request.departureBefore == null)) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.BAD_REQUEST));
+        }
+        return flightService.changeStatus(request)
+                .onItem().transform(changed -> RestResponse.status(Response.Status.OK, new ChangeFlightStatusResultDto(changed)));
+    }
 
+    /**
+     * Tag of the given version in the media type of the variant.
+     * The tag is weak, the same representation is sent compressed or not depending on Accept-Encoding.
+     */
+    private static EntityTag etag(String version, Variant variant) {
+        return new EntityTag(version + "-" + variant.getMediaType().getSubtype(), true);
+    }
+
+    /**
+     * SHA-256 digest of the parameters, base64url encoded.
+     * Every parameter is written with its length and {@code null} differs from an empty value,
+     * so different parameters never have the same encoding.
+     */
+    private static String digest(Object... parameters) {
+        var encoded = new StringBuilder();
+        for (var parameter : parameters) {
+            if (parameter == null) {
+                encoded.append("-;");
+            } else {
+                var value = parameter.toString();
+                encoded.append(value.length()).append(':').append(value).append(';');
+            }
+        }
+        try {
+            var hash = MessageDigest.getInstance("SHA-256").digest(encoded.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Date toDate(OffsetDateTime dateTime) {
+        return dateTime == null ? new Date() : Date.from(dateTime.toInstant());
+    }
+}
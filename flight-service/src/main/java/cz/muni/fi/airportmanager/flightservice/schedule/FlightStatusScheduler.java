@@ -0,0 +1,178 @@
+package cz.muni.fi.airportmanager.flightservice.schedule;
+
+import cz.muni.fi.airportmanager.flightservice.event.FlightChangedEvent;
+import cz.muni.fi.airportmanager.flightservice.index.FlightTimeIndex;
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import cz.muni.fi.airportmanager.flightservice.service.FlightService;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves flights through {@link FlightStatus#BOARDING} and {@link FlightStatus#COMPLETED}.
+ * <p>
+ * Every active flight has a timer for the start of boarding, {@code flight.status.boarding-lead} before
+ * its departure, and a timer for its arrival. The timers are kept in a {@link TimingWheel} with one tick
+ * per second. Flights whose timers expired in the same tick are changed with one update per
+ * {@value #BATCH_SIZE} flights. The update only changes flights that still have the expected status,
+ * so timers of flights that were cancelled or deleted meanwhile do not have to be removed from the wheel.
+ * <p>
+ * Timers are added when a flight is created, and when a flight that was not active or boarding
+ * becomes active or boarding, e.g. a delayed flight that is active again.
+ * <p>
+ * The timers are rebuilt from the flights of the {@link FlightTimeIndex} at startup, transitions missed
+ * while the service was down happen with the first tick.
+ */
+@ApplicationScoped
+public class FlightStatusScheduler {
+
+    private static final Logger LOG = Logger.getLogger(FlightStatusScheduler.class);
+
+    private static final int BATCH_SIZE = 1000;
+    private static final Set<FlightStatus> BOARDING_FROM = Set.of(FlightStatus.ACTIVE);
+    private static final Set<FlightStatus> COMPLETED_FROM = Set.of(FlightStatus.ACTIVE, FlightStatus.BOARDING);
+
+    @Inject
+    FlightService flightService;
+
+    @Inject
+    FlightTimeIndex flightTimeIndex;
+
+    @ConfigProperty(name = "flight.status.boarding-lead", defaultValue = "30M")
+    Duration boardingLead;
+
+    @ConfigProperty(name = "flight.status.retry-delay", defaultValue = "30S")
+    Duration retryDelay;
+
+    private final TimingWheel<Transition> wheel = new TimingWheel<>(currentTick());
+
+    // the flight time index is built by an earlier startup observer
+    void onStart(@Observes StartupEvent event) {
+        var flights = flightTimeIndex.findAll();
+        flights.forEach(this::schedule);
+        LOG.infof("Flight status timers scheduled for %d flights", flights.size());
+    }
+
+    // runs before the flight time index is updated, so it still has the previous status of the flight
+    void onFlightChanged(@Observes @Priority(Interceptor.Priority.APPLICATION) FlightChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED -> schedule(event.getFlight());
+            case STATUS_CHANGED -> changeStatus(flightTimeIndex.get(event.getFlightId()), event.getStatus());
+            case ALL_DELETED -> clear();
+            // timers of deleted and cancelled flights expire without changing anything
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Expire timers up to the current second and change status of their flights
+     *
+     * @return when the statuses are changed
+     */
+    @Scheduled(every = "${flight.status.tick-interval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public Uni<Void> tick() {
+        var boarding = new ArrayList<Long>();
+        var completed = new ArrayList<Long>();
+        synchronized (wheel) {
+            wheel.advance(currentTick(), transition -> {
+                if (transition.status == FlightStatus.BOARDING) {
+                    boarding.add(transition.flightId);
+                } else {
+                    completed.add(transition.flightId);
+                }
+            });
+        }
+        // boarding first, so a flight whose both timers expired ends up completed
+        return changeStatus(boarding, BOARDING_FROM, FlightStatus.BOARDING)
+                .chain(() -> changeStatus(completed, COMPLETED_FROM, FlightStatus.COMPLETED));
+    }
+
+    /**
+     * @return number of timers that have not expired yet
+     */
+    public int getPendingTimers() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private void schedule(FlightDto flight) {
+        if (flight.status != FlightStatus.ACTIVE && flight.status != FlightStatus.BOARDING) {
+            return;
+        }
+        var now = System.currentTimeMillis();
+        synchronized (wheel) {
+            // a flight that already arrived only needs to be completed
+            if (flight.status == FlightStatus.ACTIVE && flight.departureTime != null
+                    && (flight.arrivalTime == null || flight.arrivalTime.getTime() > now)) {
+                wheel.add(toTick(flight.departureTime.getTime() - boardingLead.toMillis()), new Transition(flight.id, FlightStatus.BOARDING));
+            }
+            if (flight.arrivalTime != null) {
+                wheel.add(toTick(flight.arrivalTime.getTime()), new Transition(flight.id, FlightStatus.COMPLETED));
+            }
+        }
+    }
+
+    private void changeStatus(FlightDto flight, FlightStatus newStatus) {
+        // an active or boarding flight already has its timers
+        if (flight == null || flight.status == FlightStatus.ACTIVE || flight.status == FlightStatus.BOARDING) {
+            return;
+        }
+        schedule(flight.withStatus(newStatus));
+    }
+
+    private void clear() {
+        synchronized (wheel) {
+            wheel.clear();
+        }
+    }
+
+    private Uni<Void> changeStatus(List<Long> flightIds, Set<FlightStatus> currentStatuses, FlightStatus newStatus) {
+        if (flightIds.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        return Multi.createFrom().range(0, (flightIds.size() + BATCH_SIZE - 1) / BATCH_SIZE)
+                .map(batch -> flightIds.subList(batch * BATCH_SIZE, Math.min(flightIds.size(), (batch + 1) * BATCH_SIZE)))
+                .onItem().transformToUniAndConcatenate(batch -> flightService.changeStatus(batch, currentStatuses, newStatus)
+                        .onFailure().recoverWithItem(failure -> {
+                            LOG.warnf(failure, "Failed to change status of %d flights to %s, retrying in %s", batch.size(), newStatus, retryDelay);
+                            retry(batch, newStatus);
+                            return List.of();
+                        }))
+                .collect().last()
+                .replaceWithVoid();
+    }
+
+    private void retry(List<Long> flightIds, FlightStatus newStatus) {
+        var deadline = toTick(System.currentTimeMillis() + retryDelay.toMillis());
+        synchronized (wheel) {
+            flightIds.forEach(flightId -> wheel.add(deadline, new Transition(flightId, newStatus)));
+        }
+    }
+
+    private static long currentTick() {
+        return toTick(System.currentTimeMillis());
+    }
+
+    private static long toTick(long millis) {
+        return Math.floorDiv(millis, 1000L);
+    }
+
+    private record Transition(long flightId, FlightStatus status) {
+    }
+}
@@ -0,0 +1,134 @@
+package cz.muni.fi.airportmanager.flightservice.schedule;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel.
+ * <p>
+ * Timers are kept in {@value #LEVELS} wheels of {@value #SLOTS} slots. A slot of the first wheel covers one tick,
+ * a slot of every next wheel covers all slots of the previous one. A timer is put into the wheel whose slots are
+ * just large enough for its delay; when time reaches a slot of an upper wheel its timers are moved down, until
+ * they expire in the first wheel. Adding a timer and expiring it is constant time, and every timer is a single
+ * linked list node, so memory does not depend on how far in the future the timers are.
+ * <p>
+ * The wheel is not thread safe.
+ *
+ * @param <T> type of the value of a timer
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+
+    private final Timer<T>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param currentTick tick the wheel starts at
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long currentTick) {
+        this.wheels = new Timer[LEVELS][SLOTS];
+        this.currentTick = currentTick;
+    }
+
+    /**
+     * Add a timer
+     *
+     * @param deadline tick at which the timer expires, timers with a past deadline expire with the next advance
+     * @param value    value of the timer
+     */
+    public void add(long deadline, T value) {
+        size++;
+        insert(new Timer<>(Math.max(deadline, currentTick + 1), value));
+    }
+
+    /**
+     * Move the wheel to the given tick and expire all timers with a deadline up to it
+     *
+     * @param tick    tick to move to
+     * @param expired receives values of expired timers
+     */
+    public void advance(long tick, Consumer<T> expired) {
+        while (currentTick < tick) {
+            currentTick++;
+            for (int level = 1; level < LEVELS; level++) {
+                var shift = SLOT_BITS * level;
+                if ((currentTick & ((1L << shift) - 1)) != 0) {
+                    break;
+                }
+                var slot = (int) (currentTick >>> shift) & SLOT_MASK;
+                var timer = wheels[level][slot];
+                wheels[level][slot] = null;
+                while (timer != null) {
+                    var next = timer.next;
+                    insert(timer);
+                    timer = next;
+                }
+            }
+            var slot = (int) currentTick & SLOT_MASK;
+            var timer = wheels[0][slot];
+            wheels[0][slot] = null;
+            while (timer != null) {
+                var next = timer.next;
+                if (timer.deadline <= currentTick) {
+                    size--;
+                    expired.accept(timer.value);
+                } else {
+                    insert(timer);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    /**
+     * Remove all timers without expiring them
+     */
+    public void clear() {
+        for (var wheel : wheels) {
+            Arrays.fill(wheel, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * @return tick the wheel is at
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * @return number of timers that have not expired yet
+     */
+    public int size() {
+        return size;
+    }
+
+    private void insert(Timer<T> timer) {
+        var delay = timer.deadline - currentTick;
+        var level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        var slot = (int) (timer.deadline >>> (SLOT_BITS * level)) & SLOT_MASK;
+        timer.next = wheels[level][slot];
+        wheels[level][slot] = timer;
+    }
+
+    private static final class Timer<T> {
+        final long deadline;
+        final T value;
+        Timer<T> next;
+
+        Timer(long deadline, T value) {
+            this.deadline = deadline;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package cz.muni.fi.airportmanager.flightservice.seat;
+
+import cz.muni.fi.airportmanager.flightservice.event.FlightChangedEvent;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import cz.muni.fi.airportmanager.flightservice.repository.FlightRepository;
+import cz.muni.fi.airportmanager.proto.SeatReservationStatus;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.vertx.VertxContextSupport;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seat reservations of flights.
+ * <p>
+ * Every flight has an atomic counter of reserved seats, loaded from the database with the first reservation.
+ * A reservation only increments the counter if it stays within the capacity of the flight, so concurrent
+ * reservations never wait for a row lock and the flight is never overbooked. Changed counters are written
+ * to the database in one transaction every {@code flight.seats.flush-interval} and when the application stops.
+ * <p>
+ * The counters are authoritative, so only one instance of the service may reserve seats.
+ */
+@ApplicationScoped
+public class SeatInventory {
+
+    private static final Logger LOG = Logger.getLogger(SeatInventory.class);
+
+    @Inject
+    FlightRepository flightRepository;
+
+    private final Map<Long, FlightSeats> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every removal of flights, so a flight loaded before it was deleted is not added again
+     */
+    private final AtomicLong removals = new AtomicLong();
+
+    /**
+     * Reserve a seat on the flight
+     *
+     * @param flightId flight id
+     * @return {@link SeatReservationStatus#SeatReserved} or the reason the seat was not reserved
+     */
+    public Uni<SeatReservationStatus> reserve(long flightId) {
+        return seats(flightId).onItem().transform(seats -> {
+            if (seats == null) {
+                return SeatReservationStatus.FlightNotFound;
+            }
+            if (seats.cancelled) {
+                return SeatReservationStatus.FlightCancelled;
+            }
+            return seats.reserve() ? SeatReservationStatus.SeatReserved : SeatReservationStatus.SoldOut;
+        });
+    }
+
+    /**
+     * Release seats reserved on the flight, the counter never goes below zero
+     *
+     * @param flightId flight id
+     * @param count    number of seats to release
+     * @return {@link SeatReservationStatus#SeatReleased} or {@link SeatReservationStatus#FlightNotFound}
+     */
+    public Uni<SeatReservationStatus> release(long flightId, int count) {
+        return seats(flightId).onItem().transform(seats -> {
+            if (seats == null) {
+                return SeatReservationStatus.FlightNotFound;
+            }
+            seats.release(count);
+            return SeatReservationStatus.SeatReleased;
+        });
+    }
+
+    /**
+     * Write changed counters of reserved seats to the database
+     *
+     * @return when the counters are written
+     */
+    @Scheduled(every = "${flight.seats.flush-interval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public Uni<Void> flush() {
+        var changed = new ArrayList<Map.Entry<Long, Integer>>();
+        flights.forEach((flightId, seats) -> {
+            // clear the flag before reading the counter, so a reservation made meanwhile is written by the next flush
+            if (seats.dirty.getAndSet(false)) {
+                changed.add(Map.entry(flightId, seats.reserved.get()));
+            }
+        });
+        if (changed.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        return Panache.withTransaction(() -> Multi.createFrom().iterable(changed)
+                        .onItem().transformToUniAndConcatenate(entry -> flightRepository.update("reservedSeats = ?1 where id = ?2", entry.getValue(), entry.getKey())
+                                .onItem().invoke(updated -> {
+                                    if (updated == 0) {
+                                        // the flight was deleted, its counter is dropped
+                                        flights.remove(entry.getKey());
+                                    }
+                                }))
+                        .collect().last())
+                .onFailure().invoke(failure -> {
+                    LOG.warnf(failure, "Failed to write reserved seats of %d flights", changed.size());
+                    changed.forEach(entry -> {
+                        var seats = flights.get(entry.getKey());
+                        if (seats != null) {
+                            seats.dirty.set(true);
+                        }
+                    });
+                })
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    void onStop(@Observes ShutdownEvent event) throws Throwable {
+        VertxContextSupport.subscribeAndAwait(this::flush);
+    }
+
+    void onFlightChanged(@Observes FlightChangedEvent event) {
+        switch (event.getType()) {
+            // counted before the flights are removed, see seats
+            case DELETED -> {
+                removals.incrementAndGet();
+                flights.remove(event.getFlightId());
+            }
+            case ALL_DELETED -> {
+                removals.incrementAndGet();
+                flights.clear();
+            }
+            case STATUS_CHANGED -> {
+                var seats = flights.get(event.getFlightId());
+                if (seats != null) {
+                    seats.cancelled = event.getStatus() == FlightStatus.CANCELLED;
+                }
+            }
+        }
+    }
+
+    private Uni<FlightSeats> seats(long flightId) {
+        var seats = flights.get(flightId);
+        if (seats != null) {
+            return Uni.createFrom().item(seats);
+        }
+        var stamp = removals.get();
+        return Panache.withSession(() -> flightRepository.findById(flightId))
+                .onItem().ifNotNull().transformToUni(flight -> {
+                    var loaded = new FlightSeats(flight.getCapacity(), flight.getReservedSeats(), flight.getStatus() == FlightStatus.CANCELLED);
+                    // another reservation may have loaded the flight meanwhile, its counter wins,
+                    // a flight loaded before a removal may have been deleted and is loaded again
+                    var current = flights.compute(flightId, (id, existing) -> existing != null || removals.get() != stamp ? existing : loaded);
+                    return current != null ? Uni.createFrom().item(current) : seats(flightId);
+                });
+    }
+
+    static final class FlightSeats {
+        final int capacity;
+        final AtomicInteger reserved;
+        final AtomicBoolean dirty = new AtomicBoolean();
+        volatile boolean cancelled;
+
+        FlightSeats(int capacity, int reserved, boolean cancelled) {
+            this.capacity = capacity;
+            this.reserved = new AtomicInteger(reserved);
+            this.cancelled = cancelled;
+        }
+
+        boolean reserve() {
+            int current;
+            do {
+                current = reserved.get();
+                if (current >= capacity) {
+                    return false;
+                }
+            } while (!reserved.compareAndSet(current, current + 1));
+            dirty.set(true);
+            return true;
+        }
+
+        void release(int count) {
+            int current;
+            do {
+                current = reserved.get();
+                if (current == 0) {
+                    return;
+                }
+            } while (!reserved.compareAndSet(current, Math.max(0, current - count)));
+            dirty.set(true);
+        }
+    }
+}
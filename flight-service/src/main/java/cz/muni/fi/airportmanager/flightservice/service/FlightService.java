@@ -1,79 +1,402 @@
 package cz.muni.fi.airportmanager.flightservice.service;
 
+import cz.muni.fi.airportmanager.flightservice.cache.FlightCache;
+import cz.muni.fi.airportmanager.flightservice.entity.CancellationOutbox;
 import cz.muni.fi.airportmanager.flightservice.entity.Flight;
+import cz.muni.fi.airportmanager.flightservice.event.FlightChangedEvent;
+import cz.muni.fi.airportmanager.flightservice.index.FlightStatistics;
+import cz.muni.fi.airportmanager.flightservice.index.FlightTimeIndex;
+import cz.muni.fi.airportmanager.flightservice.model.CacheStatsDto;
+import cz.muni.fi.airportmanager.flightservice.model.ChangeFlightStatusDto;
 import cz.muni.fi.airportmanager.flightservice.model.CreateFlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightCancellationResultDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightCancellationStatus;
 import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightFilter;
+import cz.muni.fi.airportmanager.flightservice.model.FlightImportErrorDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightImportResultDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatsDto;
 import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import cz.muni.fi.airportmanager.flightservice.model.ItineraryDto;
+import cz.muni.fi.airportmanager.flightservice.repository.CancellationOutboxRepository;
 import cz.muni.fi.airportmanager.flightservice.repository.FlightRepository;
-import cz.muni.fi.airportmanager.proto.FlightCancellationRequest;
-import cz.muni.fi.airportmanager.proto.FlightCancellationResponseStatus;
-import cz.muni.fi.airportmanager.proto.MutinyFlightCancellationGrpc;
-import io.quarkus.grpc.GrpcClient;
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.vertx.VertxContextSupport;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.unchecked.Unchecked;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @ApplicationScoped
 public class FlightService {
+
+    private static final String UNKNOWN_REASON = "Unknown";
+
     @Inject
     FlightRepository flightRepository;
 
+    @Inject
+    FlightTimeIndex flightTimeIndex;
+
+    @Inject
+    FlightCache flightCache;
+
+    @Inject
+    FlightStatistics flightStatistics;
+
+    @Inject
+    Event<FlightChangedEvent> flightChangedEvent;
+
+    @Inject
+    CancellationOutboxRepository outboxRepository;
+
+    /**
+     * Number of flights fetched from the database at once when streaming all flights
+     */
+    @ConfigProperty(name = "flight.stream.chunk-size", defaultValue = "500")
+    int streamChunkSize;
+
+    /**
+     * Number of flights inserted in one transaction when importing flights
+     */
+    @ConfigProperty(name = "flight.import.chunk-size", defaultValue = "1000")
+    int importChunkSize;
+
+    /**
+     * Get a page of flights ordered by id
+     *
+     * @param afterId id of the last flight of the previous page, use 0 for the first page
+     * @param limit   maximum number of flights in the page
+     * @return list of flights
+     */
+    public Uni<List<FlightDto>> listPage(long afterId, int limit) {
+        return flightRepository.findPage(afterId, limit);
+    }
 
-    @GrpcClient("passenger-service")
-    MutinyFlightCancellationGrpc.MutinyFlightCancellationStub flightCancellationStub;
+    /**
+     * Get a page of flights matching the filter
+     *
+     * @param filter  filter of the flights
+     * @param sort    comma separated fields to sort by, prefixed with {@code -} for descending order, ordered by id if {@code null}
+     * @param afterId id of the last flight of the previous page, only allowed when ordered by id
+     * @param offset  number of flights skipped
+     * @param limit   maximum number of flights in the page
+     * @return list of flights, failed with {@link IllegalArgumentException} if a field is unknown
+     */
+    public Uni<List<FlightDto>> listPage(FlightFilter filter, String sort, long afterId, int offset, int limit) {
+        return flightRepository.findPage(filter, sort, afterId, offset, limit);
+    }
+
+    /**
+     * Get selected fields of a page of flights matching the filter
+     *
+     * @param filter  filter of the flights
+     * @param fields  comma separated fields to select
+     * @param sort    comma separated fields to sort by, prefixed with {@code -} for descending order, ordered by id if {@code null}
+     * @param afterId id of the last flight of the previous page, only allowed when ordered by id
+     * @param offset  number of flights skipped
+     * @param limit   maximum number of flights in the page
+     * @return list of maps from field name to value, failed with {@link IllegalArgumentException} if a field is unknown
+     */
+    public Uni<List<Map<String, Object>>> listPageFields(FlightFilter filter, String fields, String sort, long afterId, int offset, int limit) {
+        return flightRepository.findPageFields(filter, fields, sort, afterId, offset, limit);
+    }
 
     /**
-     * Get list of all flights
+     * Stream all flights ordered by id
      *
-     * @return list of all flights
+     * @return stream of all flights
      */
-    @WithTransaction
-    public Uni<List<FlightDto>> listAll() {
-        return flightRepository.listAll().onItem().transform(flights -> flights.stream().map(Flight::toDto).toList());
+    public Multi<FlightDto> streamAll() {
+        return flightRepository.streamAll(streamChunkSize);
     }
 
     /**
-     * Get flight by id
+     * Get flight by id, served from the flight cache when possible
      *
      * @param id flight id
      * @return flight with given id
      * @throws IllegalArgumentException if flight with given id does not exist
      */
-    @WithTransaction
     public Uni<FlightDto> getFlight(Long id) {
-        return flightRepository.findById(id).onItem().transform(Unchecked.function(flight -> {
-            if (flight == null) {
-                throw new IllegalArgumentException("Flight with id " + id + " does not exist");
-            }
-            return flight.toDto();
-        }));
+        var cached = flightCache.get(id);
+        if (cached != null) {
+            return cached.map(flight -> Uni.createFrom().item(flight))
+                    .orElseGet(() -> Uni.createFrom().failure(new IllegalArgumentException("Flight with id " + id + " does not exist")));
+        }
+        var stamp = flightCache.stamp();
+        return flightRepository.findDtoById(id)
+                .onItem().invoke(flight -> flightCache.put(id, flight, stamp))
+                .onItem().ifNull().failWith(() -> new IllegalArgumentException("Flight with id " + id + " does not exist"));
+    }
+
+    /**
+     * Get version of the flight, from the cache if the flight is cached
+     *
+     * @param id flight id
+     * @return version or {@code null} if flight with given id does not exist
+     */
+    public Uni<Long> getFlightVersion(long id) {
+        var cached = flightCache.get(id);
+        if (cached != null) {
+            return Uni.createFrom().item(cached.map(flight -> flight.version).orElse(null));
+        }
+        return flightRepository.findVersion(id);
+    }
+
+    /**
+     * Get version of the list of all flights, it changes whenever a flight is created, changed or deleted
+     *
+     * @return version of the list
+     */
+    public Uni<String> getListVersion() {
+        return flightRepository.findListVersion();
+    }
+
+    /**
+     * Get hit, miss and eviction counters of the flight cache
+     *
+     * @return cache counters
+     */
+    public CacheStatsDto getCacheStats() {
+        return flightCache.stats();
+    }
+
+    /**
+     * Get counters of flights by status, departure airport and hour of departure
+     *
+     * @return flight counters
+     */
+    public FlightStatsDto getStatistics() {
+        return flightStatistics.snapshot();
     }
 
+    /**
+     * Find all flights that depart at or after the given date
+     *
+     * @param currentDate current date
+     * @return list of flights ordered by departure time
+     */
+    public Uni<List<FlightDto>> findFutureFlights(Date currentDate) {
+        return Uni.createFrom().item(() -> flightTimeIndex.findFuture(currentDate));
+    }
+
+    /**
+     * Find all flights that departed but have not arrived yet at the given date
+     *
+     * @param currentDate current date
+     * @return list of flights ordered by departure time
+     */
+    public Uni<List<FlightDto>> findOngoingFlights(Date currentDate) {
+        return Uni.createFrom().item(() -> flightTimeIndex.findOngoing(currentDate));
+    }
+
+    /**
+     * Find all flights that arrived before the given date
+     *
+     * @param currentDate current date
+     * @return list of flights ordered by arrival time
+     */
+    public Uni<List<FlightDto>> findPastFlights(Date currentDate) {
+        return Uni.createFrom().item(() -> flightTimeIndex.findPast(currentDate));
+    }
+
+    /**
+     * Find flights between two airports departing in the given time window
+     *
+     * @param airportFrom  departure airport
+     * @param airportTo    arrival airport
+     * @param departAfter  flights departing at or after this date, {@code null} for no lower bound
+     * @param departBefore flights departing before this date, {@code null} for no upper bound
+     * @param status       status of the flights, {@code null} for any status
+     * @return list of flights ordered by departure time
+     */
+    public Uni<List<FlightDto>> searchFlights(String airportFrom, String airportTo, Date departAfter, Date departBefore, FlightStatus status) {
+        return Uni.createFrom().item(() -> flightTimeIndex.findRoute(airportFrom, airportTo, departAfter, departBefore, status));
+    }
+
+    /**
+     * Find itineraries from one airport to another with the earliest arrival
+     *
+     * @param airportFrom   departure airport
+     * @param airportTo     arrival airport
+     * @param departAfter   the first flight departs at or after this date
+     * @param minConnection minimum time between connecting flights
+     * @param maxLegs       maximum number of flights of an itinerary
+     * @return itineraries ordered by number of legs, each arriving earlier than the previous one
+     */
+    public Uni<List<ItineraryDto>> findItineraries(String airportFrom, String airportTo, Date departAfter, Duration minConnection, int maxLegs) {
+        return Uni.createFrom().item(() -> flightTimeIndex.findEarliestArrival(airportFrom, airportTo, departAfter, minConnection, maxLegs));
+    }
+
+    /*
+     * Methods below that modify flights open the transaction themselves instead of using @WithTransaction,
+     * so FlightChangedEvent is fired only after the transaction is committed.
+     */
+
     /**
      * Create a new flight
      *
      * @param flight flight to create.
      * @return created flight
      */
-    @WithTransaction
     public Uni<FlightDto> createFlight(CreateFlightDto flight) {
-        return flightRepository.persist(Flight.fromDto(flight)).onItem().transform(Flight::toDto);
+        return Panache.withTransaction(() -> flightRepository.persistWithVersion(Flight.fromDto(flight)))
+                .onItem().transform(Flight::toDto)
+                .onItem().invoke(created -> flightChangedEvent.fire(FlightChangedEvent.created(created)));
     }
 
 
+    /**
+     * Import flights in chunks, each chunk is inserted in its own transaction.
+     * Invalid flights are reported and skipped, a chunk that fails to be inserted is reported
+     * without aborting the remaining chunks.
+     *
+     * @param flights flights to import, {@code null} items are reported as malformed
+     * @return number of imported flights and flights that were not imported
+     */
+    public Uni<FlightImportResultDto> importFlights(List<CreateFlightDto> flights) {
+        var result = new FlightImportResultDto();
+        var chunks = new ArrayList<List<IndexedFlight>>();
+        var chunk = new ArrayList<IndexedFlight>(importChunkSize);
+        for (int i = 0; i < flights.size(); i++) {
+            var error = validate(flights.get(i));
+            if (error != null) {
+                result.errors.add(new FlightImportErrorDto(i, error));
+                continue;
+            }
+            chunk.add(new IndexedFlight(i, Flight.fromDto(flights.get(i))));
+            if (chunk.size() == importChunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(importChunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return Multi.createFrom().iterable(chunks)
+                .onItem().transformToUniAndConcatenate(this::importChunk)
+                .onItem().invoke(result.errors::addAll)
+                .collect().last()
+                .onItem().transform(ignored -> {
+                    result.errors.sort(Comparator.comparingInt(error -> error.index));
+                    result.imported = flights.size() - result.errors.size();
+                    return result;
+                });
+    }
+
+    /**
+     * Import flights as they are read, only one chunk of flights is held in memory.
+     * Each chunk is inserted in its own transaction, the call blocks until the last chunk is inserted
+     * and must not be made on the event loop.
+     *
+     * @param flights flights to import, {@code null} items are reported as malformed
+     * @return number of imported flights and flights that were not imported
+     */
+    public FlightImportResultDto importFlights(Iterator<CreateFlightDto> flights) {
+        var result = new FlightImportResultDto();
+        var chunk = new ArrayList<IndexedFlight>(importChunkSize);
+        var count = 0;
+        for (; flights.hasNext(); count++) {
+            var flight = flights.next();
+            var error = validate(flight);
+            if (error != null) {
+                result.errors.add(new FlightImportErrorDto(count, error));
+                continue;
+            }
+            chunk.add(new IndexedFlight(count, Flight.fromDto(flight)));
+            if (chunk.size() == importChunkSize) {
+                result.errors.addAll(importChunkAndAwait(chunk));
+                chunk = new ArrayList<>(importChunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            result.errors.addAll(importChunkAndAwait(chunk));
+        }
+        result.errors.sort(Comparator.comparingInt(error -> error.index));
+        result.imported = count - result.errors.size();
+        return result;
+    }
+
+    private List<FlightImportErrorDto> importChunkAndAwait(List<IndexedFlight> chunk) {
+        try {
+            return VertxContextSupport.subscribeAndAwait(() -> importChunk(chunk));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // failures of the chunk are reported as import errors, only a failure to run it ends up here
+            throw new IllegalStateException("Flights could not be imported", e);
+        }
+    }
+
+    private Uni<List<FlightImportErrorDto>> importChunk(List<IndexedFlight> chunk) {
+        var entities = chunk.stream().map(IndexedFlight::flight).toList();
+        return Panache.withTransaction(() -> flightRepository.persistWithVersions(entities))
+                .onItem().invoke(versions -> entities.forEach(flight -> {
+                    var dto = flight.toDto();
+                    dto.version = versions.get(flight.getId());
+                    flightChangedEvent.fire(FlightChangedEvent.created(dto));
+                }))
+                .onItem().transform(ignored -> List.<FlightImportErrorDto>of())
+                .onFailure().recoverWithItem(failure -> chunk.stream()
+                        .map(flight -> new FlightImportErrorDto(flight.index(), "Flight could not be stored: " + failure.getMessage()))
+                        .toList());
+    }
+
+    private static String validate(CreateFlightDto flight) {
+        if (flight == null) {
+            return "Malformed flight";
+        }
+        if (flight.name == null || flight.name.isBlank()) {
+            return "Name is required";
+        }
+        if (flight.airportFrom == null || flight.airportFrom.isBlank() || flight.airportTo == null || flight.airportTo.isBlank()) {
+            return "Departure and arrival airports are required";
+        }
+        if (flight.departureTime == null || flight.arrivalTime == null) {
+            return "Departure and arrival times are required";
+        }
+        if (!flight.arrivalTime.after(flight.departureTime)) {
+            return "Arrival time must be after departure time";
+        }
+        if (flight.capacity <= 0) {
+            return "Capacity must be positive";
+        }
+        if (flight.status == null) {
+            return "Status is required";
+        }
+        return null;
+    }
+
+    private record IndexedFlight(int index, Flight flight) {
+    }
+
     /**
      * Delete flight
      *
      * @param id flight id
      * @return if the flight was deleted
      */
-    @WithTransaction
     public Uni<Boolean> deleteFlight(Long id) {
-        return flightRepository.deleteById(id);
+        return Panache.withTransaction(() -> flightRepository.deleteById(id))
+                .onItem().invoke(wasDeleted -> {
+                    if (Boolean.TRUE.equals(wasDeleted)) {
+                        flightChangedEvent.fire(FlightChangedEvent.deleted(id));
+                    }
+                });
     }
 
     /**
@@ -81,33 +404,82 @@ public class FlightService {
      *
      * @return number of deleted flights
      */
-    @WithTransaction
     public Uni<Long> deleteAllFlights() {
-        return flightRepository.deleteAll();
+        return Panache.withTransaction(() -> flightRepository.deleteAll())
+                .onItem().invoke(() -> flightChangedEvent.fire(FlightChangedEvent.allDeleted()));
     }
 
     /**
-     * Cancel flight
+     * Cancel flight, the cancellation is written to the outbox in the same transaction
+     * and delivered to passenger service by {@code CancellationRelay}
      *
      * @param id flight id
-     * @return if the flight was cancelled
+     * @return if the flight was cancelled, {@code false} if it does not exist, failed if it could not be cancelled
      */
-    @WithTransaction
     public Uni<Boolean> cancelFlight(Long id) {
-        return flightRepository.changeStatus(id, FlightStatus.CANCELLED)
-                .onItem().transformToUni(ignored ->
-                        flightCancellationStub.cancelFlight(
-                                FlightCancellationRequest.newBuilder()
-                                        .setId(Math.toIntExact(id))
-                                        .setReason("Unknown")
-                                        .build()
-                        )
-                )
-                .onItem().transform(response -> {
-                    if (response.getStatus() != FlightCancellationResponseStatus.Cancelled) {
-                        throw new RuntimeException("Flight cancellation failed");
-                    }
-                    return true;
-                }).onFailure().recoverWithItem(false);
+        var now = new Date();
+        return Panache.withTransaction(() -> flightRepository.changeStatus(id, FlightStatus.CANCELLED)
+                        .onItem().transformToUni(updated -> {
+                            if (updated == 0) {
+                                throw new IllegalArgumentException("Flight with id " + id + " does not exist");
+                            }
+                            return outboxRepository.persist(CancellationOutbox.of(id, UNKNOWN_REASON, now));
+                        }))
+                .onItem().invoke(() -> flightChangedEvent.fire(FlightChangedEvent.statusChanged(id, FlightStatus.CANCELLED)))
+                .replaceWith(true)
+                .onFailure(IllegalArgumentException.class).recoverWithItem(false);
+    }
+
+    /**
+     * Cancel multiple flights with a single status update, the cancellations are written to the outbox
+     * in the same transaction and delivered to passenger service by {@code CancellationRelay}
+     *
+     * @param ids    ids of flights to cancel
+     * @param reason reason of the cancellation
+     * @return result of the cancellation of each flight, in the order of the given ids
+     */
+    public Uni<List<FlightCancellationResultDto>> cancelFlights(List<Long> ids, String reason) {
+        var distinctIds = new LinkedHashSet<>(ids);
+        var now = new Date();
+        return Panache.withTransaction(() -> flightRepository.changeStatus(distinctIds, FlightStatus.CANCELLED)
+                        .onItem().transformToUni(cancelledIds -> outboxRepository.persist(cancelledIds.stream()
+                                        .map(id -> CancellationOutbox.of(id, reason == null ? UNKNOWN_REASON : reason, now)))
+                                .replaceWith(cancelledIds)))
+                .onItem().invoke(cancelledIds -> cancelledIds.forEach(id -> flightChangedEvent.fire(FlightChangedEvent.statusChanged(id, FlightStatus.CANCELLED))))
+                .onItem().transform(cancelledIds -> {
+                    var cancelled = Set.copyOf(cancelledIds);
+                    return distinctIds.stream()
+                            .map(id -> new FlightCancellationResultDto(id, cancelled.contains(id) ? FlightCancellationStatus.CANCELLED : FlightCancellationStatus.NOT_FOUND))
+                            .toList();
+                })
+                .onFailure().recoverWithItem(() -> distinctIds.stream()
+                        .map(id -> new FlightCancellationResultDto(id, FlightCancellationStatus.ERROR))
+                        .toList());
+    }
+
+    /**
+     * Change status of those of the given flights that currently have one of the given statuses
+     *
+     * @param ids             ids of flights
+     * @param currentStatuses statuses the flights may have to be changed
+     * @param newStatus       new status
+     * @return ids of flights that had their status changed
+     */
+    public Uni<List<Long>> changeStatus(Collection<Long> ids, Collection<FlightStatus> currentStatuses, FlightStatus newStatus) {
+        return Panache.withTransaction(() -> flightRepository.changeStatus(ids, currentStatuses, newStatus))
+                .onItem().invoke(changedIds -> changedIds.forEach(id -> flightChangedEvent.fire(FlightChangedEvent.statusChanged(id, newStatus))));
+    }
+
+    /**
+     * Change status of all flights matching the criteria with a single update
+     *
+     * @param change criteria of the flights and their new status
+     * @return number of flights that had their status changed
+     * @throws IllegalArgumentException if no criterion is given
+     */
+    public Uni<Integer> changeStatus(ChangeFlightStatusDto change) {
+        return Panache.withTransaction(() -> flightRepository.changeStatus(change.status, change.airportFrom, change.departureBefore, change.newStatus))
+                .onItem().invoke(changedIds -> changedIds.forEach(id -> flightChangedEvent.fire(FlightChangedEvent.statusChanged(id, change.newStatus))))
+                .onItem().transform(List::size);
     }
 }
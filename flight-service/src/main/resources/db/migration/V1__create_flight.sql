@@ -0,0 +1,21 @@
+create sequence flight_seq start with 1 increment by 50;
+
+create table flight
+(
+    id             bigint   not null,
+    name           varchar(255),
+    airport_from   varchar(255),
+    airport_to     varchar(255),
+    departure_time timestamp(6),
+    arrival_time   timestamp(6),
+    capacity       integer  not null,
+    status         smallint check (status between 0 and 4),
+    primary key (id)
+);
+
+-- future and ongoing flights
+create index flight_departure_time_idx on flight (departure_time);
+-- past flights
+create index flight_arrival_time_idx on flight (arrival_time);
+-- flights by status
+create index flight_status_idx on flight (status);
@@ -0,0 +1,2 @@
+-- flights of a route departing in a time window
+create index flight_route_idx on flight (airport_from, airport_to, departure_time);
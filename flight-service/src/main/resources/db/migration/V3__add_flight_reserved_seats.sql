@@ -0,0 +1 @@
+alter table flight add column reserved_seats integer not null default 0;
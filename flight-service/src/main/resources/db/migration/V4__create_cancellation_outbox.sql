@@ -0,0 +1,16 @@
+create sequence cancellation_outbox_seq start with 1 increment by 50;
+
+-- cancellations committed together with the status change, waiting to be delivered to passenger service
+create table cancellation_outbox
+(
+    id              bigint       not null,
+    flight_id       bigint       not null,
+    reason          varchar(255),
+    created_at      timestamp(6) not null,
+    attempts        integer      not null,
+    next_attempt_at timestamp(6) not null,
+    primary key (id)
+);
+
+-- entries due for delivery
+create index cancellation_outbox_next_attempt_at_idx on cancellation_outbox (next_attempt_at);
@@ -0,0 +1,26 @@
+-- versions are taken from one sequence, so the highest version changes with every created or changed flight
+create sequence flight_version_seq;
+
+alter table flight add column version bigint;
+update flight set version = nextval('flight_version_seq');
+alter table flight alter column version set not null;
+alter table flight alter column version set default nextval('flight_version_seq');
+
+-- bulk status updates bypass the entity, the version is assigned by the database on every change of the flight
+create function flight_next_version() returns trigger as
+$$
+begin
+    new.version := nextval('flight_version_seq');
+    return new;
+end;
+$$ language plpgsql;
+
+-- reserved seats are not part of the flight representation and do not change its version
+create trigger flight_version_trg
+    before update of name, airport_from, airport_to, departure_time, arrival_time, capacity, status
+    on flight
+    for each row
+execute function flight_next_version();
+
+-- version of the list of all flights
+create index flight_version_idx on flight (version);
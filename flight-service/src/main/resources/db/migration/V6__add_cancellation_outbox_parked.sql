@@ -0,0 +1,5 @@
+-- entries that can not be delivered are parked and no longer retried
+alter table cancellation_outbox add column parked boolean not null default false;
+
+drop index cancellation_outbox_next_attempt_at_idx;
+create index cancellation_outbox_next_attempt_at_idx on cancellation_outbox (next_attempt_at) where not parked;
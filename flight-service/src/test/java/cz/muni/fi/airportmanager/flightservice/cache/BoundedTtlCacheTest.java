@@ -0,0 +1,90 @@
+package cz.muni.fi.airportmanager.flightservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedTtlCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void shouldCountHitsAndMisses() {
+        var cache = new BoundedTtlCache<Long, String>(10, now::get);
+        cache.put(1L, "one", Duration.ofSeconds(10));
+
+        assertEquals("one", cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void shouldStoreOnlyWhenConditionHolds() {
+        var cache = new BoundedTtlCache<Long, String>(10, now::get);
+
+        assertFalse(cache.putIf(1L, "one", Duration.ofSeconds(10), () -> false));
+        assertTrue(cache.putIf(2L, "two", Duration.ofSeconds(10), () -> true));
+
+        assertNull(cache.get(1L));
+        assertEquals("two", cache.get(2L));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntry() {
+        var cache = new BoundedTtlCache<Long, String>(2, now::get);
+        cache.put(1L, "one", Duration.ofSeconds(10));
+        cache.put(2L, "two", Duration.ofSeconds(10));
+        cache.get(1L);
+        cache.put(3L, "three", Duration.ofSeconds(10));
+
+        assertEquals(2, cache.size());
+        assertEquals("one", cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void shouldExpireEntry() {
+        var cache = new BoundedTtlCache<Long, String>(10, now::get);
+        cache.put(1L, "one", Duration.ofSeconds(10));
+        now.addAndGet(Duration.ofSeconds(10).toMillis());
+
+        assertNull(cache.get(1L));
+        assertEquals(1, cache.getExpirations());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldInvalidateEntries() {
+        var cache = new BoundedTtlCache<Long, String>(10, now::get);
+        cache.put(1L, "one", Duration.ofSeconds(10));
+        cache.put(2L, "two", Duration.ofSeconds(10));
+        cache.invalidate(1L);
+
+        assertNull(cache.get(1L));
+        assertEquals("two", cache.get(2L));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldComputeAbsentValueOnce() {
+        var cache = new BoundedTtlCache<Long, String>(10, now::get);
+        var loads = new AtomicLong();
+
+        assertEquals("one", cache.computeIfAbsent(1L, key -> loads.incrementAndGet() == 1 ? "one" : "again", Duration.ofSeconds(10)));
+        assertEquals("one", cache.computeIfAbsent(1L, key -> loads.incrementAndGet() == 1 ? "one" : "again", Duration.ofSeconds(10)));
+        assertEquals(1, loads.get());
+
+        now.addAndGet(10_000);
+        assertEquals("again", cache.computeIfAbsent(1L, key -> loads.incrementAndGet() == 1 ? "one" : "again", Duration.ofSeconds(10)));
+    }
+}
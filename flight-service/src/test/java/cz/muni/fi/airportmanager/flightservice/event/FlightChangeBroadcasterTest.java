@@ -0,0 +1,69 @@
+package cz.muni.fi.airportmanager.flightservice.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.muni.fi.airportmanager.flightservice.index.FlightTimeIndex;
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightChangeBroadcasterTest {
+
+    private FlightChangeBroadcaster broadcaster;
+    private FlightTimeIndex flightTimeIndex;
+
+    @BeforeEach
+    void setUp() {
+        flightTimeIndex = new FlightTimeIndex();
+        broadcaster = new FlightChangeBroadcaster();
+        broadcaster.flightTimeIndex = flightTimeIndex;
+        broadcaster.objectMapper = new ObjectMapper();
+    }
+
+    private FlightDto createFlight(long id) {
+        var flight = new FlightDto();
+        flight.id = id;
+        flight.name = "Test Flight " + id;
+        flight.airportFrom = "Airport A";
+        flight.airportTo = "Airport B";
+        flight.departureTime = new Date(1000);
+        flight.arrivalTime = new Date(2000);
+        flight.capacity = 100;
+        flight.status = FlightStatus.ACTIVE;
+        return flight;
+    }
+
+    @Test
+    void shouldShareSerializedChangeBetweenSubscribers() {
+        var first = broadcaster.changes().subscribe().withSubscriber(AssertSubscriber.create(10));
+        var second = broadcaster.changes().subscribe().withSubscriber(AssertSubscriber.create(10));
+
+        broadcaster.onFlightChanged(FlightChangedEvent.created(createFlight(1)));
+
+        assertEquals(1, first.getItems().size());
+        assertSame(first.getItems().get(0).json(), second.getItems().get(0).json());
+        assertTrue(first.getItems().get(0).json().contains("\"type\":\"CREATED\""));
+    }
+
+    @Test
+    void shouldSendFlightWithNewStatus() {
+        flightTimeIndex.add(createFlight(1));
+        var subscriber = broadcaster.changes().subscribe().withSubscriber(AssertSubscriber.create(10));
+
+        broadcaster.onFlightChanged(FlightChangedEvent.statusChanged(1, FlightStatus.CANCELLED));
+
+        var change = subscriber.getItems().get(0);
+        assertEquals(FlightStatus.CANCELLED, change.flight().status);
+        assertTrue(change.matches(FlightStatus.CANCELLED, "Airport B"));
+        assertFalse(change.matches(FlightStatus.ACTIVE, null));
+        assertFalse(change.matches(null, "Airport C"));
+    }
+}
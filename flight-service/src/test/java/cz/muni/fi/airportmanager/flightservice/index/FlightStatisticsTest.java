@@ -0,0 +1,92 @@
+package cz.muni.fi.airportmanager.flightservice.index;
+
+import cz.muni.fi.airportmanager.flightservice.event.FlightChangedEvent;
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightStatisticsTest {
+
+    private FlightStatistics statistics;
+    private FlightTimeIndex flightTimeIndex;
+
+    @BeforeEach
+    void setUp() {
+        flightTimeIndex = new FlightTimeIndex();
+        statistics = new FlightStatistics();
+        statistics.flightTimeIndex = flightTimeIndex;
+    }
+
+    private FlightDto createFlight(long id, String airportFrom, int departureHour) {
+        var flight = new FlightDto();
+        flight.id = id;
+        flight.name = "Test Flight " + id;
+        flight.airportFrom = airportFrom;
+        flight.airportTo = "Airport B";
+        flight.departureTime = Date.from(LocalDateTime.of(2024, 1, 1, departureHour, 30).atZone(ZoneId.systemDefault()).toInstant());
+        flight.arrivalTime = new Date(flight.departureTime.getTime() + 3_600_000);
+        flight.capacity = 100;
+        flight.status = FlightStatus.ACTIVE;
+        return flight;
+    }
+
+    // the index is updated after the statistics, as it would be by the CDI observers
+    private void fire(FlightChangedEvent event) {
+        statistics.onFlightChanged(event);
+        flightTimeIndex.onFlightChanged(event);
+    }
+
+    @Test
+    void shouldCountCreatedFlights() {
+        fire(FlightChangedEvent.created(createFlight(1, "Airport A", 8)));
+        fire(FlightChangedEvent.created(createFlight(2, "Airport A", 8)));
+        fire(FlightChangedEvent.created(createFlight(3, "Airport C", 17)));
+
+        var stats = statistics.snapshot();
+        assertEquals(3, stats.total);
+        assertEquals(Map.of(FlightStatus.ACTIVE, 3L), stats.byStatus);
+        assertEquals(Map.of("Airport A", 2L, "Airport C", 1L), stats.byAirportFrom);
+        assertEquals(Map.of(8, 2L, 17, 1L), stats.byDepartureHour);
+    }
+
+    @Test
+    void shouldMoveFlightBetweenStatuses() {
+        fire(FlightChangedEvent.created(createFlight(1, "Airport A", 8)));
+        fire(FlightChangedEvent.created(createFlight(2, "Airport A", 8)));
+
+        fire(FlightChangedEvent.statusChanged(1, FlightStatus.CANCELLED));
+
+        var stats = statistics.snapshot();
+        assertEquals(2, stats.total);
+        assertEquals(Map.of(FlightStatus.ACTIVE, 1L, FlightStatus.CANCELLED, 1L), stats.byStatus);
+    }
+
+    @Test
+    void shouldRemoveCountersOfDeletedFlights() {
+        fire(FlightChangedEvent.created(createFlight(1, "Airport A", 8)));
+        fire(FlightChangedEvent.created(createFlight(2, "Airport C", 17)));
+
+        fire(FlightChangedEvent.deleted(2));
+
+        var stats = statistics.snapshot();
+        assertEquals(1, stats.total);
+        assertEquals(Map.of("Airport A", 1L), stats.byAirportFrom);
+        assertEquals(Map.of(8, 1L), stats.byDepartureHour);
+
+        fire(FlightChangedEvent.allDeleted());
+        stats = statistics.snapshot();
+        assertEquals(0, stats.total);
+        assertTrue(stats.byStatus.isEmpty());
+        assertTrue(stats.byAirportFrom.isEmpty());
+        assertTrue(stats.byDepartureHour.isEmpty());
+    }
+}
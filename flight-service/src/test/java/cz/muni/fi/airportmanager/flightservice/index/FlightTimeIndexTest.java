@@ -0,0 +1,94 @@
+package cz.muni.fi.airportmanager.flightservice.index;
+
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightTimeIndexTest {
+
+    private final Instant now = Instant.parse("2024-01-01T12:00:00Z");
+
+    private FlightTimeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FlightTimeIndex();
+    }
+
+    private FlightDto createFlight(long id, Duration departureOffset, Duration arrivalOffset) {
+        var flight = new FlightDto();
+        flight.id = id;
+        flight.name = "Test Flight " + id;
+        flight.airportFrom = "Airport A";
+        flight.airportTo = "Airport B";
+        flight.departureTime = Date.from(now.plus(departureOffset));
+        flight.arrivalTime = Date.from(now.plus(arrivalOffset));
+        flight.capacity = 100;
+        flight.status = FlightStatus.ACTIVE;
+        return flight;
+    }
+
+    @Test
+    void shouldSplitFlightsIntoPastOngoingAndFuture() {
+        var past = createFlight(1, Duration.ofHours(-5), Duration.ofHours(-3));
+        var ongoing = createFlight(2, Duration.ofHours(-1), Duration.ofHours(1));
+        var future = createFlight(3, Duration.ofHours(2), Duration.ofHours(4));
+        index.add(past);
+        index.add(ongoing);
+        index.add(future);
+
+        var currentDate = Date.from(now);
+        assertEquals(1, index.findPast(currentDate).size());
+        assertEquals(past.id, index.findPast(currentDate).get(0).id);
+        assertEquals(1, index.findOngoing(currentDate).size());
+        assertEquals(ongoing.id, index.findOngoing(currentDate).get(0).id);
+        assertEquals(1, index.findFuture(currentDate).size());
+        assertEquals(future.id, index.findFuture(currentDate).get(0).id);
+    }
+
+    @Test
+    void shouldFindLongOngoingFlight() {
+        index.add(createFlight(1, Duration.ofHours(-12), Duration.ofHours(1)));
+        index.add(createFlight(2, Duration.ofHours(-2), Duration.ofHours(-1)));
+
+        var ongoing = index.findOngoing(Date.from(now));
+        assertEquals(1, ongoing.size());
+        assertEquals(1L, ongoing.get(0).id);
+    }
+
+    @Test
+    void shouldRemoveFlight() {
+        index.add(createFlight(1, Duration.ofHours(1), Duration.ofHours(2)));
+        index.remove(1);
+
+        assertTrue(index.findFuture(Date.from(now)).isEmpty());
+    }
+
+    @Test
+    void shouldClearFlights() {
+        index.add(createFlight(1, Duration.ofHours(1), Duration.ofHours(2)));
+        index.add(createFlight(2, Duration.ofHours(-2), Duration.ofHours(-1)));
+        index.clear();
+
+        assertTrue(index.findFuture(Date.from(now)).isEmpty());
+        assertTrue(index.findPast(Date.from(now)).isEmpty());
+    }
+
+    @Test
+    void shouldChangeStatusWithoutModifyingReturnedFlight() {
+        var flight = createFlight(1, Duration.ofHours(1), Duration.ofHours(2));
+        index.add(flight);
+        index.changeStatus(1, FlightStatus.CANCELLED);
+
+        assertEquals(FlightStatus.ACTIVE, flight.status);
+        assertEquals(FlightStatus.CANCELLED, index.findFuture(Date.from(now)).get(0).status);
+    }
+}
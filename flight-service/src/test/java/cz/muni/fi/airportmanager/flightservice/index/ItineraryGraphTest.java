@@ -0,0 +1,111 @@
+package cz.muni.fi.airportmanager.flightservice.index;
+
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import cz.muni.fi.airportmanager.flightservice.model.ItineraryDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItineraryGraphTest {
+
+    private final Instant now = Instant.parse("2024-01-01T12:00:00Z");
+
+    private FlightTimeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FlightTimeIndex();
+        index.searchWindow = Duration.ofHours(48);
+    }
+
+    private FlightDto createFlight(long id, String airportFrom, String airportTo, Duration departureOffset, Duration arrivalOffset) {
+        var flight = new FlightDto();
+        flight.id = id;
+        flight.name = "Test Flight " + id;
+        flight.airportFrom = airportFrom;
+        flight.airportTo = airportTo;
+        flight.departureTime = Date.from(now.plus(departureOffset));
+        flight.arrivalTime = Date.from(now.plus(arrivalOffset));
+        flight.capacity = 100;
+        flight.status = FlightStatus.ACTIVE;
+        return flight;
+    }
+
+    private List<ItineraryDto> search(String from, String to, int maxLegs) {
+        return index.findEarliestArrival(from, to, Date.from(now), Duration.ofMinutes(45), maxLegs);
+    }
+
+    private static List<Long> legIds(ItineraryDto itinerary) {
+        return itinerary.legs.stream().map(flight -> flight.id).toList();
+    }
+
+    @Test
+    void shouldFindDirectAndFasterConnectingItinerary() {
+        index.add(createFlight(1, "PRG", "JFK", Duration.ofHours(1), Duration.ofHours(12)));
+        index.add(createFlight(2, "PRG", "LHR", Duration.ofHours(1), Duration.ofHours(3)));
+        index.add(createFlight(3, "LHR", "JFK", Duration.ofHours(4), Duration.ofHours(10)));
+
+        var itineraries = search("PRG", "JFK", 2);
+
+        assertEquals(2, itineraries.size());
+        assertEquals(List.of(1L), legIds(itineraries.get(0)));
+        assertEquals(List.of(2L, 3L), legIds(itineraries.get(1)));
+        assertEquals(Date.from(now.plus(Duration.ofHours(10))), itineraries.get(1).arrivalTime);
+    }
+
+    @Test
+    void shouldRespectMinimumConnectionTime() {
+        index.add(createFlight(1, "PRG", "LHR", Duration.ofHours(1), Duration.ofHours(3)));
+        index.add(createFlight(2, "LHR", "JFK", Duration.ofMinutes(3 * 60 + 30), Duration.ofHours(10)));
+        index.add(createFlight(3, "LHR", "JFK", Duration.ofHours(5), Duration.ofHours(11)));
+
+        var itineraries = search("PRG", "JFK", 2);
+
+        assertEquals(1, itineraries.size());
+        assertEquals(List.of(1L, 3L), legIds(itineraries.get(0)));
+    }
+
+    @Test
+    void shouldLimitNumberOfLegs() {
+        index.add(createFlight(1, "PRG", "LHR", Duration.ofHours(1), Duration.ofHours(3)));
+        index.add(createFlight(2, "LHR", "JFK", Duration.ofHours(4), Duration.ofHours(10)));
+
+        assertTrue(search("PRG", "JFK", 1).isEmpty());
+        assertEquals(1, search("PRG", "JFK", 2).size());
+    }
+
+    @Test
+    void shouldSkipCancelledFlightsUntilReactivated() {
+        index.add(createFlight(1, "PRG", "JFK", Duration.ofHours(1), Duration.ofHours(12)));
+        index.changeStatus(1, FlightStatus.CANCELLED);
+
+        assertTrue(search("PRG", "JFK", 1).isEmpty());
+
+        index.changeStatus(1, FlightStatus.DELAYED);
+
+        assertEquals(1, search("PRG", "JFK", 1).size());
+    }
+
+    @Test
+    void shouldNotUseRemovedFlights() {
+        index.add(createFlight(1, "PRG", "JFK", Duration.ofHours(1), Duration.ofHours(12)));
+        index.remove(1);
+
+        assertTrue(search("PRG", "JFK", 1).isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreFlightsDepartingBeforeRequestedTime() {
+        index.add(createFlight(1, "PRG", "JFK", Duration.ofHours(-1), Duration.ofHours(8)));
+
+        assertTrue(search("PRG", "JFK", 1).isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+package cz.muni.fi.airportmanager.flightservice.index;
+
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteTableTest {
+
+    private final Instant now = Instant.parse("2024-01-01T12:00:00Z");
+
+    private FlightTimeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FlightTimeIndex();
+    }
+
+    private FlightDto createFlight(long id, String airportFrom, String airportTo, Duration departureOffset) {
+        var flight = new FlightDto();
+        flight.id = id;
+        flight.name = "Test Flight " + id;
+        flight.airportFrom = airportFrom;
+        flight.airportTo = airportTo;
+        flight.departureTime = Date.from(now.plus(departureOffset));
+        flight.arrivalTime = Date.from(now.plus(departureOffset).plus(Duration.ofHours(2)));
+        flight.capacity = 100;
+        flight.status = FlightStatus.ACTIVE;
+        return flight;
+    }
+
+    private static List<Long> ids(List<FlightDto> flights) {
+        return flights.stream().map(flight -> flight.id).toList();
+    }
+
+    @Test
+    void shouldFindFlightsOfRouteOrderedByDeparture() {
+        index.add(createFlight(1, "PRG", "VIE", Duration.ofHours(3)));
+        index.add(createFlight(2, "PRG", "VIE", Duration.ofHours(1)));
+        index.add(createFlight(3, "PRG", "BRQ", Duration.ofHours(2)));
+        index.add(createFlight(4, "VIE", "PRG", Duration.ofHours(2)));
+
+        assertEquals(List.of(2L, 1L), ids(index.findRoute("PRG", "VIE", null, null, null)));
+    }
+
+    @Test
+    void shouldFindFlightsInTimeWindow() {
+        index.add(createFlight(1, "PRG", "VIE", Duration.ofHours(1)));
+        index.add(createFlight(2, "PRG", "VIE", Duration.ofHours(2)));
+        index.add(createFlight(3, "PRG", "VIE", Duration.ofHours(3)));
+
+        var flights = index.findRoute("PRG", "VIE", Date.from(now.plus(Duration.ofHours(2))), Date.from(now.plus(Duration.ofHours(3))), null);
+        assertEquals(List.of(2L), ids(flights));
+    }
+
+    @Test
+    void shouldFilterFlightsByStatus() {
+        index.add(createFlight(1, "PRG", "VIE", Duration.ofHours(1)));
+        index.add(createFlight(2, "PRG", "VIE", Duration.ofHours(2)));
+        index.changeStatus(2, FlightStatus.CANCELLED);
+
+        assertEquals(List.of(2L), ids(index.findRoute("PRG", "VIE", null, null, FlightStatus.CANCELLED)));
+        assertEquals(List.of(1L), ids(index.findRoute("PRG", "VIE", null, null, FlightStatus.ACTIVE)));
+    }
+
+    @Test
+    void shouldMoveFlightWhenReplaced() {
+        index.add(createFlight(1, "PRG", "VIE", Duration.ofHours(1)));
+        index.add(createFlight(1, "PRG", "BRQ", Duration.ofHours(1)));
+
+        assertTrue(index.findRoute("PRG", "VIE", null, null, null).isEmpty());
+        assertEquals(List.of(1L), ids(index.findRoute("PRG", "BRQ", null, null, null)));
+    }
+
+    @Test
+    void shouldRemoveFlight() {
+        index.add(createFlight(1, "PRG", "VIE", Duration.ofHours(1)));
+        index.remove(1);
+
+        assertTrue(index.findRoute("PRG", "VIE", null, null, null).isEmpty());
+    }
+}
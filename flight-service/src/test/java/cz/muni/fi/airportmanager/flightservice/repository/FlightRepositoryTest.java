@@ -10,8 +10,13 @@ import org.junit.jupiter.api.Test;
 import java.time.Duration;
 
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 @QuarkusTest
@@ -118,6 +123,63 @@ class FlightRepositoryTest {
                 );
     }
 
+    @Test
+    @TestReactiveTransaction
+    void shouldFindFlightDtoById(UniAsserter asserter) {
+        var flight = createOngoingFlight();
+
+        asserter.execute(() -> this.flightRepository.persist(flight))
+                .assertEquals(() -> this.flightRepository.findDtoById(flight.getId()), flight.toDto())
+                .assertNull(() -> this.flightRepository.findDtoById(-1L));
+    }
+
+    @Test
+    @TestReactiveTransaction
+    void shouldChangeVersionWhenStatusChanges(UniAsserter asserter) {
+        var flight = createOngoingFlight();
+        var version = new AtomicLong();
+        var listVersion = new AtomicReference<String>();
+
+        asserter.execute(() -> this.flightRepository.persist(flight))
+                .execute(() -> this.flightRepository.findVersion(flight.getId()).invoke(version::set))
+                .execute(() -> this.flightRepository.findListVersion().invoke(listVersion::set))
+                .execute(() -> this.flightRepository.changeStatus(flight.getId(), FlightStatus.BOARDING))
+                .assertThat(
+                        () -> this.flightRepository.findVersion(flight.getId()),
+                        changed -> assertTrue(changed > version.get())
+                )
+                .assertThat(
+                        () -> this.flightRepository.findListVersion(),
+                        changed -> assertNotEquals(listVersion.get(), changed)
+                )
+                .assertNull(() -> this.flightRepository.findVersion(-1L));
+    }
+
+    @Test
+    @TestReactiveTransaction
+    void shouldFindPageOfFlightsAfterCursor(UniAsserter asserter) {
+        var first = createOngoingFlight();
+        var second = createOngoingFlight();
+
+        asserter.execute(this.flightRepository::deleteAll)
+                .execute(() -> this.flightRepository.persist(first))
+                .execute(() -> this.flightRepository.persist(second))
+                .assertThat(
+                        () -> this.flightRepository.findPage(0L, 1),
+                        flights -> {
+                            assertEquals(1, flights.size());
+                            assertEquals(Math.min(first.getId(), second.getId()), flights.get(0).id);
+                        }
+                )
+                .assertThat(
+                        () -> this.flightRepository.findPage(Math.min(first.getId(), second.getId()), 10),
+                        flights -> {
+                            assertEquals(1, flights.size());
+                            assertEquals(Math.max(first.getId(), second.getId()), flights.get(0).id);
+                        }
+                );
+    }
+
     @Test
     @TestReactiveTransaction
     void shouldChangeStatusOfFlight(UniAsserter asserter) {
@@ -134,12 +196,79 @@ class FlightRepositoryTest {
                         assertEquals(flight, flights.get(0));
                     })
                 )
-                .execute(() -> this.flightRepository.changeStatus(flight.getId(), FlightStatus.CANCELLED))
+                .assertEquals(() -> this.flightRepository.changeStatus(flight.getId(), FlightStatus.CANCELLED), 1)
                 .assertThat(
-                        () -> this.flightRepository.findById(flight.getId()),
-                        found -> {
-                            assertEquals(FlightStatus.CANCELLED, found.getStatus());
-                        }
+                        () -> this.flightRepository.find("id = ?1 and status = ?2", flight.getId(), FlightStatus.CANCELLED).count(),
+                        count -> assertEquals(1L, count)
+                );
+    }
+
+    @Test
+    @TestReactiveTransaction
+    void shouldNotChangeStatusOfNonexistingFlight(UniAsserter asserter) {
+        asserter.assertEquals(() -> this.flightRepository.changeStatus(-1L, FlightStatus.CANCELLED), 0);
+    }
+
+    @Test
+    @TestReactiveTransaction
+    void shouldChangeStatusOfMultipleFlights(UniAsserter asserter) {
+        var first = createOngoingFlight();
+        var second = createOngoingFlight();
+
+        asserter.execute(this.flightRepository::deleteAll)
+                .execute(() -> this.flightRepository.persist(first))
+                .execute(() -> this.flightRepository.persist(second))
+                .assertThat(
+                        () -> this.flightRepository.changeStatus(List.of(first.getId(), -1L), FlightStatus.CANCELLED),
+                        changed -> assertEquals(List.of(first.getId()), changed)
+                )
+                .assertThat(
+                        () -> this.flightRepository.find("status", FlightStatus.CANCELLED).count(),
+                        count -> assertEquals(1L, count)
+                );
+    }
+
+    @Test
+    @TestReactiveTransaction
+    void shouldChangeStatusOfFlightsMatchingCriteria(UniAsserter asserter) {
+        var delayed = createOngoingFlight();
+        delayed.setStatus(FlightStatus.DELAYED);
+        var delayedFromOtherAirport = createOngoingFlight();
+        delayedFromOtherAirport.setStatus(FlightStatus.DELAYED);
+        delayedFromOtherAirport.setAirportFrom("Airport C");
+        var active = createOngoingFlight();
+
+        asserter.execute(this.flightRepository::deleteAll)
+                .execute(() -> this.flightRepository.persist(delayed))
+                .execute(() -> this.flightRepository.persist(delayedFromOtherAirport))
+                .execute(() -> this.flightRepository.persist(active))
+                .assertThat(
+                        () -> this.flightRepository.changeStatus(FlightStatus.DELAYED, "Airport A", new Date(), FlightStatus.ACTIVE),
+                        changed -> assertEquals(List.of(delayed.getId()), changed)
+                )
+                .assertThat(
+                        () -> this.flightRepository.find("status", FlightStatus.DELAYED).count(),
+                        count -> assertEquals(1L, count)
+                );
+    }
+
+    @Test
+    @TestReactiveTransaction
+    void shouldChangeStatusOnlyOfFlightsWithExpectedStatus(UniAsserter asserter) {
+        var active = createOngoingFlight();
+        var cancelled = createOngoingFlight();
+        cancelled.setStatus(FlightStatus.CANCELLED);
+
+        asserter.execute(this.flightRepository::deleteAll)
+                .execute(() -> this.flightRepository.persist(active))
+                .execute(() -> this.flightRepository.persist(cancelled))
+                .assertThat(
+                        () -> this.flightRepository.changeStatus(List.of(active.getId(), cancelled.getId()), List.of(FlightStatus.ACTIVE), FlightStatus.COMPLETED),
+                        changed -> assertEquals(List.of(active.getId()), changed)
+                )
+                .assertThat(
+                        () -> this.flightRepository.find("status", FlightStatus.CANCELLED).count(),
+                        count -> assertEquals(1L, count)
                 );
     }
 }
@@ -0,0 +1,44 @@
+package cz.muni.fi.airportmanager.flightservice.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ListQueryTest {
+
+    private static final List<String> FIELDS = List.of("id", "name", "status");
+
+    @Test
+    void shouldBuildClausesFromAllowedFields() {
+        var query = ListQuery.of("f", FIELDS)
+                .where("f.status = :status", "status", "ACTIVE")
+                .where("f.name = :name", "name", null)
+                .orderBy("-name, status")
+                .select("id,name");
+
+        assertEquals(" where f.status = :status", query.whereClause());
+        assertEquals(Map.of("status", "ACTIVE"), query.getParameters());
+        assertEquals(" order by f.name desc, f.status asc, f.id asc", query.orderByClause("id"));
+        assertEquals("f.id, f.name", query.selectClause());
+    }
+
+    @Test
+    void shouldRejectUnknownFields() {
+        assertThrows(IllegalArgumentException.class, () -> ListQuery.of("f", FIELDS).orderBy("capacity"));
+        assertThrows(IllegalArgumentException.class, () -> ListQuery.of("f", FIELDS).select("id,f.name"));
+    }
+
+    @Test
+    void shouldMapRowsToSelectedFields() {
+        var query = ListQuery.of("f", FIELDS).select("name,id");
+
+        var maps = query.toMaps(List.<Object[]>of(new Object[]{"Test Flight", 1L}));
+
+        assertEquals(List.of("name", "id"), List.copyOf(maps.get(0).keySet()));
+        assertEquals(1L, maps.get(0).get("id"));
+    }
+}
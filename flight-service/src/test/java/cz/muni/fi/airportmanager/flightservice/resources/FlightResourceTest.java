@@ -1,23 +1,38 @@
 package cz.muni.fi.airportmanager.flightservice.resources;
 
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import cz.muni.fi.airportmanager.flightservice.model.CancelFlightsDto;
+import cz.muni.fi.airportmanager.flightservice.model.ChangeFlightStatusDto;
 import cz.muni.fi.airportmanager.flightservice.model.CreateFlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightCancellationResultDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightCancellationStatus;
 import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightImportErrorDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightImportResultDto;
 import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
 import cz.muni.fi.airportmanager.flightservice.service.FlightService;
+import cz.muni.fi.airportmanager.proto.FlightListPayload;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.common.http.TestHTTPEndpoint;
 import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 
 @QuarkusTest
@@ -27,9 +42,14 @@ class FlightResourceTest {
     @InjectMock
     FlightService flightService;
 
+    @BeforeEach
+    void mockListVersion() {
+        Mockito.when(this.flightService.getListVersion()).thenReturn(Uni.createFrom().item("1-1"));
+    }
+
     @Test
     void shouldGetEmptyListOfFlights() {
-        Mockito.when(this.flightService.listAll()).thenReturn(Uni.createFrom().item(List.of()));
+        Mockito.when(this.flightService.listPage(0L, 100)).thenReturn(Uni.createFrom().item(List.of()));
 
         given().when()
                 .get()
@@ -40,7 +60,7 @@ class FlightResourceTest {
 
     @Test
     void shouldGetListOfFlights() {
-        Mockito.when(this.flightService.listAll()).thenReturn(Uni.createFrom().item(List.of(getFlightDto())));
+        Mockito.when(this.flightService.listPage(0L, 100)).thenReturn(Uni.createFrom().item(List.of(getFlightDto())));
 
         given().when()
                 .get()
@@ -49,6 +69,138 @@ class FlightResourceTest {
                 .body("size()", is(1));
     }
 
+    @Test
+    void shouldGetListOfFlightsAsProtobuf() throws Exception {
+        var flight = getFlightDto();
+        Mockito.when(this.flightService.listPage(0L, 100)).thenReturn(Uni.createFrom().item(List.of(flight)));
+
+        var body = given().accept("application/x-protobuf")
+                .when()
+                .get()
+                .then()
+                .statusCode(200)
+                .contentType("application/x-protobuf")
+                .extract().asByteArray();
+
+        var flights = FlightListPayload.parseFrom(body);
+        assertEquals(1, flights.getFlightsCount());
+        assertEquals(flight.id, flights.getFlights(0).getId());
+        assertEquals(flight.departureTime.getTime(), flights.getFlights(0).getDepartureTime());
+    }
+
+    @Test
+    void shouldGetFlightAsCbor() throws Exception {
+        var flight = getFlightDto();
+        Mockito.when(this.flightService.getFlight(flight.id)).thenReturn(Uni.createFrom().item(flight));
+
+        var body = given().accept("application/cbor")
+                .when()
+                .get("/" + flight.id)
+                .then()
+                .statusCode(200)
+                .contentType("application/cbor")
+                .extract().asByteArray();
+        var json = given().accept("application/json")
+                .when()
+                .get("/" + flight.id)
+                .then()
+                .statusCode(200)
+                .extract().jsonPath();
+
+        // dates are written with the configuration of the JSON mapper
+        var cbor = new CBORMapper().readTree(body);
+        assertEquals(json.getString("departureTime"), cbor.get("departureTime").asText());
+        assertEquals(json.getLong("id"), cbor.get("id").asLong());
+    }
+
+    @Test
+    void shouldNotReturnUnchangedListOfFlights() {
+        Mockito.when(this.flightService.listPage(0L, 100)).thenReturn(Uni.createFrom().item(List.of()));
+        var tag = given().when()
+                .get()
+                .then()
+                .statusCode(200)
+                .header("Vary", "Accept, Accept-Encoding")
+                .extract().header("ETag");
+
+        given().header("If-None-Match", tag)
+                .when()
+                .get()
+                .then()
+                .statusCode(304);
+        Mockito.verify(this.flightService, Mockito.times(1)).listPage(Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    @Test
+    void shouldReturnUnchangedListOfFlightsOfOtherQueryOrMediaType() {
+        Mockito.when(this.flightService.listPage(Mockito.anyLong(), Mockito.anyInt())).thenReturn(Uni.createFrom().item(List.of()));
+        var tag = given().when()
+                .get()
+                .then()
+                .statusCode(200)
+                .extract().header("ETag");
+
+        given().header("If-None-Match", tag)
+                .queryParam("limit", 10)
+                .when()
+                .get()
+                .then()
+                .statusCode(200);
+        given().header("If-None-Match", tag)
+                .accept("application/cbor")
+                .when()
+                .get()
+                .then()
+                .statusCode(200)
+                .contentType("application/cbor");
+    }
+
+    @Test
+    void shouldGetPageOfFlightsAfterCursor() {
+        Mockito.when(this.flightService.listPage(1L, 10)).thenReturn(Uni.createFrom().item(List.of(getFlightDto())));
+
+        given().queryParam("after", 1)
+                .queryParam("limit", 10)
+                .when()
+                .get()
+                .then()
+                .statusCode(200)
+                .body("size()", is(1));
+    }
+
+    @Test
+    void shouldRejectInvalidPageLimit() {
+        given().queryParam("limit", 0)
+                .when()
+                .get()
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void shouldExportFlightsAsNdjson() {
+        Mockito.when(this.flightService.streamAll()).thenReturn(Multi.createFrom().items(getFlightDto(), getFlightDto()));
+
+        given().accept("application/x-ndjson")
+                .when()
+                .get("/export")
+                .then()
+                .statusCode(200)
+                .body(containsString("\"id\":1"));
+    }
+
+    @Test
+    void shouldGetFutureFlights() {
+        Mockito.when(this.flightService.findFutureFlights(Mockito.any(Date.class))).thenReturn(Uni.createFrom().item(List.of(getFlightDto())));
+
+        given().queryParam("at", "2024-01-01T12:00:00Z")
+                .when()
+                .get("/future")
+                .then()
+                .statusCode(200)
+                .body("size()", is(1));
+    }
+
     @Test
     void shouldCreateFlight() {
         FlightDto responseFlight = getFlightDto();
@@ -65,6 +217,68 @@ class FlightResourceTest {
                 .body("id", equalTo((int) responseFlight.id));
     }
 
+    @Test
+    void shouldCreateFlightOnceForRepeatedIdempotencyKey() {
+        FlightDto responseFlight = getFlightDto();
+        Mockito.when(this.flightService.createFlight(Mockito.any(CreateFlightDto.class))).thenReturn(Uni.createFrom().item(responseFlight));
+
+        CreateFlightDto testFlight = responseFlight;
+
+        for (int i = 0; i < 2; i++) {
+            given().contentType("application/json")
+                    .header("Idempotency-Key", "create-once")
+                    .body(testFlight)
+                    .when()
+                    .post()
+                    .then()
+                    .statusCode(201)
+                    .body("id", equalTo((int) responseFlight.id));
+        }
+        Mockito.verify(this.flightService, Mockito.times(1)).createFlight(Mockito.any(CreateFlightDto.class));
+    }
+
+    @Test
+    void shouldRetryFailedCancellationWithSameIdempotencyKey() {
+        Mockito.when(this.flightService.cancelFlight(1L))
+                .thenReturn(Uni.createFrom().failure(new IllegalStateException("Outbox unavailable")))
+                .thenReturn(Uni.createFrom().item(true));
+
+        given().header("Idempotency-Key", "cancel-retry")
+                .when()
+                .put("/1/cancel")
+                .then()
+                .statusCode(500);
+        given().header("Idempotency-Key", "cancel-retry")
+                .when()
+                .put("/1/cancel")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void shouldRejectIdempotencyKeyReusedForDifferentFlight() {
+        FlightDto responseFlight = getFlightDto();
+        Mockito.when(this.flightService.createFlight(Mockito.any(CreateFlightDto.class))).thenReturn(Uni.createFrom().item(responseFlight));
+
+        CreateFlightDto otherFlight = getFlightDto();
+        otherFlight.name = "Other flight";
+
+        given().contentType("application/json")
+                .header("Idempotency-Key", "reused")
+                .body(responseFlight)
+                .when()
+                .post()
+                .then()
+                .statusCode(201);
+        given().contentType("application/json")
+                .header("Idempotency-Key", "reused")
+                .body(otherFlight)
+                .when()
+                .post()
+                .then()
+                .statusCode(422);
+    }
+
     @Test
     void shouldGetExistingFlight() {
         FlightDto testFlight = getFlightDto();
@@ -74,9 +288,41 @@ class FlightResourceTest {
                 .get("/" + testFlight.id)
                 .then()
                 .statusCode(200)
+                .header("ETag", "W/\"" + testFlight.version + "-json\"")
+                .header("Vary", "Accept, Accept-Encoding")
                 .body("id", equalTo((int) testFlight.id));
     }
 
+    @Test
+    void shouldNotReturnUnchangedFlight() {
+        FlightDto testFlight = getFlightDto();
+        Mockito.when(this.flightService.getFlightVersion(testFlight.id)).thenReturn(Uni.createFrom().item(7L));
+
+        given().header("If-None-Match", "W/\"7-json\"")
+                .when()
+                .get("/" + testFlight.id)
+                .then()
+                .statusCode(304);
+        Mockito.verify(this.flightService, Mockito.never()).getFlight(Mockito.anyLong());
+    }
+
+    @Test
+    void shouldReturnUnchangedFlightInOtherMediaType() {
+        FlightDto testFlight = getFlightDto();
+        testFlight.version = 7;
+        Mockito.when(this.flightService.getFlightVersion(testFlight.id)).thenReturn(Uni.createFrom().item(7L));
+        Mockito.when(this.flightService.getFlight(testFlight.id)).thenReturn(Uni.createFrom().item(testFlight));
+
+        given().header("If-None-Match", "W/\"7-json\"")
+                .accept("application/x-protobuf")
+                .when()
+                .get("/" + testFlight.id)
+                .then()
+                .statusCode(200)
+                .contentType("application/x-protobuf")
+                .header("ETag", "W/\"7-x-protobuf\"");
+    }
+
     @Test
     void shouldNotGetNonxistingFlight() {
         Mockito.when(this.flightService.getFlight(Mockito.anyLong())).thenReturn(Uni.createFrom().failure(new IllegalArgumentException()));
@@ -118,6 +364,41 @@ class FlightResourceTest {
                 .statusCode(404);
     }
 
+    @Test
+    void shouldCancelMultipleFlights() {
+        Mockito.when(this.flightService.cancelFlights(List.of(1L, 99L), "Storm")).thenReturn(Uni.createFrom().item(List.of(
+                new FlightCancellationResultDto(1L, FlightCancellationStatus.CANCELLED),
+                new FlightCancellationResultDto(99L, FlightCancellationStatus.NOT_FOUND)
+        )));
+
+        var request = new CancelFlightsDto();
+        request.ids = List.of(1L, 99L);
+        request.reason = "Storm";
+
+        given().contentType("application/json")
+                .body(request)
+                .when()
+                .put("/cancel")
+                .then()
+                .statusCode(200)
+                .body("size()", is(2))
+                .body("[0].status", equalTo("CANCELLED"))
+                .body("[1].status", equalTo("NOT_FOUND"));
+    }
+
+    @Test
+    void shouldNotCancelEmptyListOfFlights() {
+        var request = new CancelFlightsDto();
+        request.ids = List.of();
+
+        given().contentType("application/json")
+                .body(request)
+                .when()
+                .put("/cancel")
+                .then()
+                .statusCode(400);
+    }
+
 
     private FlightDto getFlightDto() {
         FlightDto flight = new FlightDto();
@@ -131,4 +412,86 @@ class FlightResourceTest {
         flight.status = FlightStatus.ACTIVE;
         return flight;
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldChangeStatusOfFlightsMatchingCriteria() {
+        Mockito.when(this.flightService.changeStatus(Mockito.any(ChangeFlightStatusDto.class))).thenReturn(Uni.createFrom().item(3));
+
+        var request = new ChangeFlightStatusDto();
+        request.status = FlightStatus.DELAYED;
+        request.airportFrom = "Airport A";
+        request.newStatus = FlightStatus.ACTIVE;
+
+        given().contentType("application/json")
+                .body(request)
+                .when()
+                .put("/status")
+                .then()
+                .statusCode(200)
+                .body("changed", is(3));
+    }
+
+    @Test
+    void shouldNotChangeStatusWithoutCriteria() {
+        var request = new ChangeFlightStatusDto();
+        request.newStatus = FlightStatus.ACTIVE;
+
+        given().contentType("application/json")
+                .body(request)
+                .when()
+                .put("/status")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void shouldImportFlightsFromNdjson() {
+        var result = new FlightImportResultDto();
+        result.imported = 1;
+        result.errors.add(new FlightImportErrorDto(1, "Malformed flight"));
+        var imported = new ArrayList<CreateFlightDto>();
+        Mockito.when(this.flightService.importFlights(Mockito.<Iterator<CreateFlightDto>>any())).thenAnswer(invocation -> {
+            Iterator<CreateFlightDto> flights = invocation.getArgument(0);
+            flights.forEachRemaining(imported::add);
+            return result;
+        });
+
+        given().contentType("application/x-ndjson")
+                .body("{\"name\": \"Test Flight\"}\nnot json\n")
+                .when()
+                .post("/batch")
+                .then()
+                .statusCode(200)
+                .body("imported", is(1))
+                .body("errors[0].index", is(1));
+
+        assertEquals(2, imported.size());
+        assertEquals("Test Flight", imported.get(0).name);
+        assertNull(imported.get(1));
+    }
+
+    @Test
+    void shouldSearchFlightsOfRoute() {
+        Mockito.when(this.flightService.searchFlights(Mockito.eq("Airport A"), Mockito.eq("Airport B"), Mockito.any(), Mockito.isNull(), Mockito.eq(FlightStatus.ACTIVE)))
+                .thenReturn(Uni.createFrom().item(List.of(getFlightDto())));
+
+        given().queryParam("from", "Airport A")
+                .queryParam("to", "Airport B")
+                .queryParam("departAfter", "2024-01-01T00:00:00Z")
+                .queryParam("status", "ACTIVE")
+                .when()
+                .get("/search")
+                .then()
+                .statusCode(200)
+                .body("size()", is(1));
+    }
+
+    @Test
+    void shouldNotSearchFlightsWithoutRoute() {
+        given().queryParam("from", "Airport A")
+                .when()
+                .get("/search")
+                .then()
+                .statusCode(400);
+    }
+}
@@ -0,0 +1,86 @@
+package cz.muni.fi.airportmanager.flightservice.schedule;
+
+import cz.muni.fi.airportmanager.flightservice.event.FlightChangedEvent;
+import cz.muni.fi.airportmanager.flightservice.index.FlightTimeIndex;
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FlightStatusSchedulerTest {
+
+    private FlightStatusScheduler scheduler;
+    private FlightTimeIndex flightTimeIndex;
+
+    @BeforeEach
+    void setUp() {
+        flightTimeIndex = new FlightTimeIndex();
+        scheduler = new FlightStatusScheduler();
+        scheduler.flightTimeIndex = flightTimeIndex;
+        scheduler.boardingLead = Duration.ofMinutes(30);
+    }
+
+    private FlightDto createFlight(long id, FlightStatus status) {
+        var now = System.currentTimeMillis();
+        var flight = new FlightDto();
+        flight.id = id;
+        flight.name = "Test Flight " + id;
+        flight.airportFrom = "Airport A";
+        flight.airportTo = "Airport B";
+        flight.departureTime = new Date(now + 2 * 3_600_000);
+        flight.arrivalTime = new Date(now + 4 * 3_600_000);
+        flight.capacity = 100;
+        flight.status = status;
+        return flight;
+    }
+
+    // the index is updated after the scheduler, as it would be by the CDI observers
+    private void fire(FlightChangedEvent event) {
+        scheduler.onFlightChanged(event);
+        switch (event.getType()) {
+            case CREATED -> flightTimeIndex.add(event.getFlight());
+            case STATUS_CHANGED -> flightTimeIndex.changeStatus(event.getFlightId(), event.getStatus());
+            default -> throw new IllegalArgumentException("Unexpected event " + event.getType());
+        }
+    }
+
+    @Test
+    void shouldScheduleTimersOfCreatedActiveFlight() {
+        fire(FlightChangedEvent.created(createFlight(1, FlightStatus.ACTIVE)));
+
+        assertEquals(2, scheduler.getPendingTimers());
+    }
+
+    @Test
+    void shouldScheduleTimersOfDelayedFlightWhenItBecomesActive() {
+        fire(FlightChangedEvent.created(createFlight(1, FlightStatus.DELAYED)));
+        assertEquals(0, scheduler.getPendingTimers());
+
+        fire(FlightChangedEvent.statusChanged(1, FlightStatus.ACTIVE));
+
+        assertEquals(2, scheduler.getPendingTimers());
+    }
+
+    @Test
+    void shouldNotScheduleTimersAgainWhenActiveFlightStartsBoarding() {
+        fire(FlightChangedEvent.created(createFlight(1, FlightStatus.ACTIVE)));
+
+        fire(FlightChangedEvent.statusChanged(1, FlightStatus.BOARDING));
+
+        assertEquals(2, scheduler.getPendingTimers());
+    }
+
+    @Test
+    void shouldNotScheduleTimersOfCancelledFlight() {
+        fire(FlightChangedEvent.created(createFlight(1, FlightStatus.DELAYED)));
+
+        fire(FlightChangedEvent.statusChanged(1, FlightStatus.CANCELLED));
+
+        assertEquals(0, scheduler.getPendingTimers());
+    }
+}
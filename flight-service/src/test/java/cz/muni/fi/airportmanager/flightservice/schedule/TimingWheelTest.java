@@ -0,0 +1,70 @@
+package cz.muni.fi.airportmanager.flightservice.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void shouldExpireTimerAtItsDeadline() {
+        var wheel = new TimingWheel<String>(100);
+        var expired = new ArrayList<String>();
+        wheel.add(105, "a");
+        wheel.add(103, "b");
+
+        wheel.advance(104, expired::add);
+        assertEquals(List.of("b"), expired);
+
+        wheel.advance(105, expired::add);
+        assertEquals(List.of("b", "a"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void shouldExpireFarFutureTimerAfterCascading() {
+        var wheel = new TimingWheel<String>(0);
+        var expired = new ArrayList<String>();
+        var deadline = 64L * 64 * 64 + 17;
+        wheel.add(deadline, "far");
+        wheel.add(70, "near");
+
+        wheel.advance(deadline - 1, expired::add);
+        assertEquals(List.of("near"), expired);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(deadline, expired::add);
+        assertEquals(List.of("near", "far"), expired);
+    }
+
+    @Test
+    void shouldExpireTimerWithPastDeadlineWithNextAdvance() {
+        var wheel = new TimingWheel<String>(1000);
+        var expired = new ArrayList<String>();
+        wheel.add(10, "late");
+
+        wheel.advance(1000, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(1001, expired::add);
+        assertEquals(List.of("late"), expired);
+    }
+
+    @Test
+    void shouldRemoveAllTimersOnClear() {
+        var wheel = new TimingWheel<String>(0);
+        var expired = new ArrayList<String>();
+        wheel.add(5, "a");
+        wheel.add(5000, "b");
+
+        wheel.clear();
+        wheel.advance(10000, expired::add);
+
+        assertTrue(expired.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+}
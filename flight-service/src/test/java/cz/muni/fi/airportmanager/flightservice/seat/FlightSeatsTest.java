@@ -0,0 +1,82 @@
+package cz.muni.fi.airportmanager.flightservice.seat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightSeatsTest {
+
+    @Test
+    void shouldNotReserveOverCapacity() {
+        var seats = new SeatInventory.FlightSeats(2, 1, false);
+
+        assertTrue(seats.reserve());
+        assertFalse(seats.reserve());
+        assertEquals(2, seats.reserved.get());
+    }
+
+    @Test
+    void shouldMarkChangedSeatsForFlush() {
+        var seats = new SeatInventory.FlightSeats(2, 0, false);
+        assertFalse(seats.dirty.get());
+
+        seats.reserve();
+
+        assertTrue(seats.dirty.get());
+    }
+
+    @Test
+    void shouldNotReleaseBelowZero() {
+        var seats = new SeatInventory.FlightSeats(2, 0, false);
+        seats.release(1);
+
+        assertEquals(0, seats.reserved.get());
+        assertFalse(seats.dirty.get());
+    }
+
+    @Test
+    void shouldReleaseMultipleSeats() {
+        var seats = new SeatInventory.FlightSeats(5, 4, false);
+
+        seats.release(3);
+        assertEquals(1, seats.reserved.get());
+        assertTrue(seats.dirty.get());
+
+        seats.release(3);
+        assertEquals(0, seats.reserved.get());
+    }
+
+    @Test
+    void shouldReserveExactlyCapacityUnderContention() throws Exception {
+        var seats = new SeatInventory.FlightSeats(100, 0, false);
+        var reserved = new AtomicInteger();
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(() -> {
+                if (seats.reserve()) {
+                    reserved.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            for (var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(100, reserved.get());
+        assertEquals(100, seats.reserved.get());
+    }
+}
@@ -1,8 +1,11 @@
 package cz.muni.fi.airportmanager.flightservice.service;
 
+import cz.muni.fi.airportmanager.flightservice.entity.CancellationOutbox;
 import cz.muni.fi.airportmanager.flightservice.entity.Flight;
 import cz.muni.fi.airportmanager.flightservice.model.CreateFlightDto;
+import cz.muni.fi.airportmanager.flightservice.model.FlightDto;
 import cz.muni.fi.airportmanager.flightservice.model.FlightStatus;
+import cz.muni.fi.airportmanager.flightservice.repository.CancellationOutboxRepository;
 import cz.muni.fi.airportmanager.flightservice.repository.FlightRepository;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
@@ -13,10 +16,14 @@ import jakarta.inject.Inject;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import java.time.Duration;
 
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,6 +33,9 @@ class FlightServiceTest {
     @InjectMock
     FlightRepository flightRepository;
 
+    @InjectMock
+    CancellationOutboxRepository outboxRepository;
+
     @Inject
     FlightService flightService;
 
@@ -46,16 +56,38 @@ class FlightServiceTest {
         return flight;
     }
 
+    private static Uni<Map<Long, Long>> assignVersions(InvocationOnMock invocation) {
+        List<Flight> flights = invocation.getArgument(0);
+        var versions = new HashMap<Long, Long>();
+        for (var i = 0; i < flights.size(); i++) {
+            flights.get(i).setId(i + 1L);
+            versions.put(i + 1L, 100L + i);
+        }
+        return Uni.createFrom().item(versions);
+    }
+
+    private CreateFlightDto createFlightDto(FlightDto flight) {
+        var dto = new CreateFlightDto();
+        dto.name = flight.name;
+        dto.airportFrom = flight.airportFrom;
+        dto.airportTo = flight.airportTo;
+        dto.departureTime = flight.departureTime;
+        dto.arrivalTime = flight.arrivalTime;
+        dto.capacity = flight.capacity;
+        dto.status = flight.status;
+        return dto;
+    }
+
 
     @Test
     @RunOnVertxContext  // Make sure the test method is run on the Vert.x event loop. aka support async
     // Gives us UniAsserter
     void shouldGetListOfFlights(UniAsserter asserter) {
         var flight = createOngoingFlight();
-        asserter.execute(() -> Mockito.when(flightRepository.listAll()).thenReturn(Uni.createFrom().item(List.of(flight))));
+        asserter.execute(() -> Mockito.when(flightRepository.findPage(0L, 10)).thenReturn(Uni.createFrom().item(List.of(flight.toDto()))));
 
         asserter.assertThat(
-                () -> flightService.listAll(),
+                () -> flightService.listPage(0L, 10),
                 flights -> {
                     assertNotNull(flights);
                     assertFalse(flights.isEmpty());
@@ -69,7 +101,7 @@ class FlightServiceTest {
     @RunOnVertxContext
     void shouldGetExistingFlight(UniAsserter asserter) {
         var flight = createOngoingFlight();
-        asserter.execute(() -> Mockito.when(flightRepository.findById(flight.getId())).thenReturn(Uni.createFrom().item(flight)));
+        asserter.execute(() -> Mockito.when(flightRepository.findDtoById(flight.getId())).thenReturn(Uni.createFrom().item(flight.toDto())));
 
         asserter.assertThat(
                 () -> flightService.getFlight(flight.getId()),
@@ -83,7 +115,7 @@ class FlightServiceTest {
     @Test
     @RunOnVertxContext
     void shouldNotGetNonexistingFlight(UniAsserter asserter) {
-        asserter.execute(() -> Mockito.when(flightRepository.findById(Mockito.any())).thenReturn(Uni.createFrom().failure(new IllegalArgumentException())));
+        asserter.execute(() -> Mockito.when(flightRepository.findDtoById(Mockito.anyLong())).thenReturn(Uni.createFrom().failure(new IllegalArgumentException())));
 
         asserter.assertFailedWith(
                 () -> flightService.getFlight(999L),
@@ -92,6 +124,32 @@ class FlightServiceTest {
     }
 
 
+    @Test
+    @RunOnVertxContext
+    void shouldServeRepeatedLookupFromCache(UniAsserter asserter) {
+        var flight = createOngoingFlight();
+        flight.setId(2L);
+        asserter.execute(() -> Mockito.when(flightRepository.findDtoById(flight.getId())).thenReturn(Uni.createFrom().item(flight.toDto())));
+
+        asserter.assertEquals(() -> flightService.getFlight(flight.getId()), flight.toDto())
+                .assertEquals(() -> flightService.getFlight(flight.getId()), flight.toDto())
+                .execute(() -> {
+                    Mockito.verify(flightRepository, Mockito.times(1)).findDtoById(flight.getId());
+                });
+    }
+
+    @Test
+    @RunOnVertxContext
+    void shouldCacheNonexistingFlight(UniAsserter asserter) {
+        asserter.execute(() -> Mockito.when(flightRepository.findDtoById(998L)).thenReturn(Uni.createFrom().nullItem()));
+
+        asserter.assertFailedWith(() -> flightService.getFlight(998L), IllegalArgumentException.class)
+                .assertFailedWith(() -> flightService.getFlight(998L), IllegalArgumentException.class)
+                .execute(() -> {
+                    Mockito.verify(flightRepository, Mockito.times(1)).findDtoById(998L);
+                });
+    }
+
     @Test
     @RunOnVertxContext
     void shouldDeleteExistingFlight(UniAsserter asserter) {
@@ -140,7 +198,7 @@ class FlightServiceTest {
         createFlightDto.arrivalTime = (flight.getArrivalTime());
         createFlightDto.capacity = (flight.getCapacity());
 
-        asserter.execute(() -> Mockito.when(flightRepository.persist(Mockito.any(Flight.class))).thenReturn(Uni.createFrom().item(flight)));
+        asserter.execute(() -> Mockito.when(flightRepository.persistWithVersion(Mockito.any(Flight.class))).thenReturn(Uni.createFrom().item(flight)));
 
         asserter.assertThat(
                 () -> flightService.createFlight(createFlightDto),
@@ -154,8 +212,65 @@ class FlightServiceTest {
     @Test
     @RunOnVertxContext
     void shouldNotCancelNonexistingFlight(UniAsserter asserter) {
+        asserter.execute(() -> Mockito.when(flightRepository.changeStatus(999L, FlightStatus.CANCELLED)).thenReturn(Uni.createFrom().item(0)));
+
         asserter.assertFalse(
                 () -> flightService.cancelFlight(999L)
         );
     }
+
+    @Test
+    @RunOnVertxContext
+    void shouldFailCancellationThatCouldNotBeWritten(UniAsserter asserter) {
+        asserter.execute(() -> {
+            Mockito.when(flightRepository.changeStatus(3L, FlightStatus.CANCELLED)).thenReturn(Uni.createFrom().item(1));
+            Mockito.when(outboxRepository.persist(Mockito.any(CancellationOutbox.class))).thenReturn(Uni.createFrom().failure(new IllegalStateException("Outbox unavailable")));
+        });
+
+        asserter.assertFailedWith(() -> flightService.cancelFlight(3L), IllegalStateException.class);
+    }
+
+    @Test
+    @RunOnVertxContext
+    void shouldWriteCancellationToOutbox(UniAsserter asserter) {
+        asserter.execute(() -> {
+            Mockito.when(flightRepository.changeStatus(3L, FlightStatus.CANCELLED)).thenReturn(Uni.createFrom().item(1));
+            Mockito.when(outboxRepository.persist(Mockito.any(CancellationOutbox.class))).thenAnswer(invocation -> Uni.createFrom().item(invocation.getArgument(0)));
+        });
+
+        asserter.assertTrue(() -> flightService.cancelFlight(3L))
+                .execute(() -> Mockito.verify(outboxRepository).persist(Mockito.argThat((CancellationOutbox entry) -> entry.getFlightId() == 3L)));
+    }
+
+    @Test
+    @RunOnVertxContext
+    void shouldImportValidFlightsAndReportInvalidOnes(UniAsserter asserter) {
+        var valid = createFlightDto(createOngoingFlight().toDto());
+        var invalid = new CreateFlightDto();
+        invalid.name = "Invalid Flight";
+
+        asserter.execute(() -> Mockito.when(flightRepository.persistWithVersions(Mockito.anyList())).thenAnswer(FlightServiceTest::assignVersions));
+
+        asserter.assertThat(
+                () -> flightService.importFlights(Arrays.asList(valid, invalid, null)),
+                result -> {
+                    assertEquals(1, result.imported);
+                    assertEquals(2, result.errors.size());
+                    assertEquals(1, result.errors.get(0).index);
+                    assertEquals(2, result.errors.get(1).index);
+                }
+        );
+    }
+
+    @Test
+    void shouldImportReadFlightsAndReportInvalidOnes() {
+        var valid = createFlightDto(createOngoingFlight().toDto());
+        Mockito.when(flightRepository.persistWithVersions(Mockito.anyList())).thenAnswer(FlightServiceTest::assignVersions);
+
+        var result = flightService.importFlights(Arrays.asList(null, valid, valid).iterator());
+
+        assertEquals(2, result.imported);
+        assertEquals(1, result.errors.size());
+        assertEquals(0, result.errors.get(0).index);
+    }
 }
@@ -9,8 +9,16 @@ import java.util.Objects;
 public class Notification extends PanacheEntity {
     public String message;
 
+    /**
+     * Recipient of a notification sent to one passenger, {@code null} for a notification of a whole flight
+     */
     public Long passengerId;
 
+    /**
+     * Flight whose passengers receive the notification, only set when {@link #passengerId} is {@code null}
+     */
+    public Long flightId;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -19,13 +27,15 @@ public class Notification extends PanacheEntity {
         Notification that = (Notification) o;
 
         if (!Objects.equals(message, that.message)) return false;
-        return Objects.equals(passengerId, that.passengerId);
+        if (!Objects.equals(passengerId, that.passengerId)) return false;
+        return Objects.equals(flightId, that.flightId);
     }
 
     @Override
     public int hashCode() {
         int result = message != null ? message.hashCode() : 0;
         result = 31 * result + (passengerId != null ? passengerId.hashCode() : 0);
+        result = 31 * result + (flightId != null ? flightId.hashCode() : 0);
         return result;
     }
 }
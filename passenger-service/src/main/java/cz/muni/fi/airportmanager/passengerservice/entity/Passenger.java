@@ -23,7 +23,11 @@ public class Passenger {
     private String email;
     private Long flightId;
 
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    /**
+     * Notifications sent to this passenger only, loaded only when asked for.
+     * Notifications of the flight of the passenger are not part of the collection, see {@link #withNotifications(List)}.
+     */
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JoinColumn(name = "passengerId")
     private List<Notification> notifications = new ArrayList<>();
 
@@ -79,6 +83,23 @@ public class Passenger {
         this.flightId = flightId;
     }
 
+    /**
+     * Copy of the passenger with different notifications, the copy is not managed and must not be persisted
+     *
+     * @param notifications notifications of the copy
+     * @return new passenger
+     */
+    public Passenger withNotifications(List<Notification> notifications) {
+        Passenger passenger = new Passenger();
+        passenger.setId(id);
+        passenger.setFirstName(firstName);
+        passenger.setLastName(lastName);
+        passenger.setEmail(email);
+        passenger.setFlightId(flightId);
+        passenger.setNotifications(notifications);
+        return passenger;
+    }
+
     public static Passenger fromDto(CreatePassengerDto passengerDto) {
         Passenger passenger = new Passenger();
         passenger.setFirstName(passengerDto.firstName);
@@ -99,8 +120,7 @@ public class Passenger {
         if (!Objects.equals(firstName, passenger.firstName)) return false;
         if (!Objects.equals(lastName, passenger.lastName)) return false;
         if (!Objects.equals(email, passenger.email)) return false;
-        if (!Objects.equals(flightId, passenger.flightId)) return false;
-        return Objects.equals(notifications, passenger.notifications);
+        return Objects.equals(flightId, passenger.flightId);
     }
 
     @Override
@@ -110,7 +130,6 @@ public class Passenger {
         result = 31 * result + (lastName != null ? lastName.hashCode() : 0);
         result = 31 * result + (email != null ? email.hashCode() : 0);
         result = 31 * result + (flightId != null ? flightId.hashCode() : 0);
-        result = 31 * result + (notifications != null ? notifications.hashCode() : 0);
         return result;
     }
 }
@@ -5,11 +5,16 @@ import cz.muni.fi.airportmanager.passengerservice.service.PassengerService;
 import cz.muni.fi.airportmanager.proto.FlightCancellationRequest;
 import cz.muni.fi.airportmanager.proto.FlightCancellationResponse;
 import cz.muni.fi.airportmanager.proto.FlightCancellationResponseStatus;
+import cz.muni.fi.airportmanager.proto.FlightCancellationResult;
+import cz.muni.fi.airportmanager.proto.FlightsCancellationRequest;
+import cz.muni.fi.airportmanager.proto.FlightsCancellationResponse;
 import cz.muni.fi.airportmanager.proto.MutinyFlightCancellationGrpc;
 import io.quarkus.grpc.GrpcService;
 import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 
+import java.util.LinkedHashMap;
+
 
 @GrpcService
 public class FlightCancellationService extends MutinyFlightCancellationGrpc.FlightCancellationImplBase {
@@ -31,6 +36,33 @@ public class FlightCancellationService extends MutinyFlightCancellationGrpc.Flig
         var notification = new Notification();
         notification.message = "Your flight " + flightId + " has been cancelled. Reason: " + reason;
         return passengerService.addNotificationByFlightId((long) flightId, notification)
-                .onItem().transform(ignored -> FlightCancellationResponse.newBuilder().setStatus(FlightCancellationResponseStatus.Cancelled).build());
+                .onItem().transform(ignored -> FlightCancellationResponse.newBuilder().setId(flightId).setStatus(FlightCancellationResponseStatus.Cancelled).build());
+    }
+
+    /**
+     * Cancel multiple flights and add notification for all their passengers in a single transaction
+     *
+     * @param request request with flight ids and reason for cancellation
+     * @return response with status of cancellation of each flight
+     */
+    @Override
+    public Uni<FlightsCancellationResponse> cancelFlights(FlightsCancellationRequest request) {
+        var reason = request.getReason();
+        var notifications = new LinkedHashMap<Long, Notification>();
+        for (var flightId : request.getIdsList()) {
+            var notification = new Notification();
+            notification.message = "Your flight " + flightId + " has been cancelled. Reason: " + reason;
+            notifications.put((long) flightId, notification);
+        }
+        return passengerService.addNotificationsByFlightIds(notifications)
+                .onItem().transform(ignored -> {
+                    var response = FlightsCancellationResponse.newBuilder();
+                    for (var flightId : notifications.keySet()) {
+                        response.addResults(FlightCancellationResult.newBuilder()
+                                .setId(Math.toIntExact(flightId))
+                                .setStatus(FlightCancellationResponseStatus.Cancelled));
+                    }
+                    return response.build();
+                });
     }
 }
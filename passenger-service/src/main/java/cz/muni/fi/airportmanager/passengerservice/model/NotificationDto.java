@@ -4,6 +4,10 @@ public class NotificationDto {
     public Long id;
     public String message;
     public String email;
+    /**
+     * Recipient of the notification, a notification of a flight is listed once for every passenger of the flight
+     */
+    public Long passengerId;
 
     public NotificationDto(Long id, String message, String email) {
         this.id = id;
@@ -11,6 +15,14 @@ public class NotificationDto {
         this.email = email;
     }
 
+    /**
+     * Used by the projection queries of {@code PassengerRepository}
+     */
+    public NotificationDto(Long id, String message, String email, Long passengerId) {
+        this(id, message, email);
+        this.passengerId = passengerId;
+    }
+
     public NotificationDto() {
     }
 }
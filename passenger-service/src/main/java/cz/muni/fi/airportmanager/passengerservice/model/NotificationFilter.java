@@ -0,0 +1,16 @@
+package cz.muni.fi.airportmanager.passengerservice.model;
+
+/**
+ * Filter of listed notifications, criteria that are {@code null} are not applied
+ */
+public class NotificationFilter {
+    public Long passengerId;
+    public String email;
+
+    /**
+     * @return {@code true} if no criterion is given
+     */
+    public boolean isEmpty() {
+        return passengerId == null && email == null;
+    }
+}
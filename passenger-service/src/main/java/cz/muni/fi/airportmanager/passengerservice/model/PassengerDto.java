@@ -0,0 +1,22 @@
+package cz.muni.fi.airportmanager.passengerservice.model;
+
+/**
+ * Passenger without notifications, used in lists of passengers
+ */
+public class PassengerDto extends CreatePassengerDto {
+    public Long id;
+
+    public PassengerDto() {
+    }
+
+    /**
+     * Used by the projection queries of {@code PassengerRepository}
+     */
+    public PassengerDto(Long id, String firstName, String lastName, String email, Long flightId) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.flightId = flightId;
+    }
+}
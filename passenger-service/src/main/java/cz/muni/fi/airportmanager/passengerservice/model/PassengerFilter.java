@@ -0,0 +1,17 @@
+package cz.muni.fi.airportmanager.passengerservice.model;
+
+/**
+ * Filter of listed passengers, criteria that are {@code null} are not applied
+ */
+public class PassengerFilter {
+    public Long flightId;
+    public String email;
+    public String lastName;
+
+    /**
+     * @return {@code true} if no criterion is given
+     */
+    public boolean isEmpty() {
+        return flightId == null && email == null && lastName == null;
+    }
+}
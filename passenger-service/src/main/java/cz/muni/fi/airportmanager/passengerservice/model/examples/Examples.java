@@ -22,27 +22,14 @@ public class Examples {
                     "firstName": "John",
                     "lastName": "Doe",
                     "email": "john@gmail.com",
-                    "flightId": 1,
-                    "notifications": [
-                      {
-                        "id": 1,
-                        "message": "Uknown",
-                        "passengerId": 1
-                      },
-                      {
-                        "id": 2,
-                        "message": "Your flight 1 has been cancelled. Reason: Unknown",
-                        "passengerId": 1
-                      }
-                    ]
+                    "flightId": 1
                 },
                 {
-                    "id": 2
+                    "id": 2,
                     "firstName": "Jane",
                     "lastName": "Doe",
                     "email": "jane@gmail.com",
-                    "flightId": 1,
-                    "notifications": []
+                    "flightId": 1
                 }
             ]
             """;
@@ -60,12 +47,14 @@ public class Examples {
                 {
                     "id": 1,
                     "email": "john@email.com",
-                    "message": "Notification message"
+                    "message": "Notification message",
+                    "passengerId": 1
                 },
                 {
                     "id": 2,
                     "email": "jane@email.com",
-                    "message": "Notification message"
+                    "message": "Notification message",
+                    "passengerId": 2
                 }
             ]
             """;
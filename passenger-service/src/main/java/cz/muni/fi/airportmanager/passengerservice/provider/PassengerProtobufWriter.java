@@ -0,0 +1,132 @@
+package cz.muni.fi.airportmanager.passengerservice.provider;
+
+import cz.muni.fi.airportmanager.passengerservice.entity.Notification;
+import cz.muni.fi.airportmanager.passengerservice.entity.Passenger;
+import cz.muni.fi.airportmanager.passengerservice.model.PassengerDto;
+import cz.muni.fi.airportmanager.proto.NotificationListPayload;
+import cz.muni.fi.airportmanager.proto.NotificationPayload;
+import cz.muni.fi.airportmanager.proto.PassengerListPayload;
+import cz.muni.fi.airportmanager.proto.PassengerPayload;
+import jakarta.ws.rs.NotAcceptableException;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.List;
+
+/**
+ * Writes a passenger as {@link PassengerPayload}, a list of passengers or {@link PassengerDto}s as {@link PassengerListPayload}
+ * and a list of notifications as {@link NotificationListPayload}
+ */
+@Provider
+@Produces(BinaryMediaType.APPLICATION_PROTOBUF)
+public class PassengerProtobufWriter implements MessageBodyWriter<Object> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        if (Passenger.class.isAssignableFrom(type)) {
+            return true;
+        }
+        if (!List.class.isAssignableFrom(type) || !(genericType instanceof ParameterizedType parameterized)) {
+            return false;
+        }
+        var element = parameterized.getActualTypeArguments()[0];
+        // lists declared as List<?> are checked element by element when written
+        return element instanceof WildcardType
+                || element instanceof Class<?> elementClass
+                && (Passenger.class.isAssignableFrom(elementClass) || PassengerDto.class.isAssignableFrom(elementClass)
+                || Notification.class.isAssignableFrom(elementClass));
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        if (entity instanceof Passenger passenger) {
+            toPayload(passenger).writeTo(entityStream);
+            return;
+        }
+        var elements = (List<?>) entity;
+        if (!elements.isEmpty() && elements.get(0) instanceof Notification) {
+            var list = NotificationListPayload.newBuilder();
+            for (var notification : elements) {
+                list.addNotifications(toPayload(cast(notification, Notification.class)));
+            }
+            list.build().writeTo(entityStream);
+            return;
+        }
+        var list = PassengerListPayload.newBuilder();
+        for (var passenger : elements) {
+            list.addPassengers(passenger instanceof PassengerDto dto ? toPayload(dto) : toPayload(cast(passenger, Passenger.class)));
+        }
+        list.build().writeTo(entityStream);
+    }
+
+    private static <T> T cast(Object element, Class<T> type) {
+        if (!type.isInstance(element)) {
+            throw new NotAcceptableException("Only passengers and notifications can be written as protobuf");
+        }
+        return type.cast(element);
+    }
+
+    static PassengerPayload toPayload(Passenger passenger) {
+        var payload = PassengerPayload.newBuilder();
+        if (passenger.getId() != null) {
+            payload.setId(passenger.getId());
+        }
+        if (passenger.getFirstName() != null) {
+            payload.setFirstName(passenger.getFirstName());
+        }
+        if (passenger.getLastName() != null) {
+            payload.setLastName(passenger.getLastName());
+        }
+        if (passenger.getEmail() != null) {
+            payload.setEmail(passenger.getEmail());
+        }
+        if (passenger.getFlightId() != null) {
+            payload.setFlightId(passenger.getFlightId());
+        }
+        for (var notification : passenger.getNotifications()) {
+            payload.addNotifications(toPayload(notification));
+        }
+        return payload.build();
+    }
+
+    static PassengerPayload toPayload(PassengerDto passenger) {
+        var payload = PassengerPayload.newBuilder();
+        if (passenger.id != null) {
+            payload.setId(passenger.id);
+        }
+        if (passenger.firstName != null) {
+            payload.setFirstName(passenger.firstName);
+        }
+        if (passenger.lastName != null) {
+            payload.setLastName(passenger.lastName);
+        }
+        if (passenger.email != null) {
+            payload.setEmail(passenger.email);
+        }
+        if (passenger.flightId != null) {
+            payload.setFlightId(passenger.flightId);
+        }
+        return payload.build();
+    }
+
+    static NotificationPayload toPayload(Notification notification) {
+        var payload = NotificationPayload.newBuilder();
+        if (notification.id != null) {
+            payload.setId(notification.id);
+        }
+        if (notification.message != null) {
+            payload.setMessage(notification.message);
+        }
+        return payload.build();
+    }
+}
@@ -0,0 +1,175 @@
+package cz.muni.fi.airportmanager.passengerservice.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where, order by and select clauses of a list query built from request parameters.
+ * <p>
+ * Field names given by clients are only accepted if they are among the allowed fields of the entity,
+ * so they are never copied into the query unchecked. Filter values are always bound as parameters.
+ */
+public class ListQuery {
+
+    private final Map<String, String> allowedFields;
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private final List<String> orderBy = new ArrayList<>();
+    private final List<String> selectedFields = new ArrayList<>();
+
+    /**
+     * @param allowedFields fields that can be sorted by and selected, mapped to their paths in the query
+     */
+    public ListQuery(Map<String, String> allowedFields) {
+        this.allowedFields = allowedFields;
+    }
+
+    /**
+     * Query of a single entity
+     *
+     * @param alias         alias of the entity in the query
+     * @param allowedFields fields of the entity that can be sorted by and selected
+     * @return query
+     */
+    public static ListQuery of(String alias, List<String> allowedFields) {
+        var paths = new LinkedHashMap<String, String>();
+        allowedFields.forEach(field -> paths.put(field, alias + "." + field));
+        return new ListQuery(paths);
+    }
+
+    /**
+     * Add condition, unless the value is {@code null}
+     *
+     * @param condition condition referring to the value as {@code :parameter}
+     * @param parameter name of the parameter
+     * @param value     value of the parameter
+     * @return this query
+     */
+    public ListQuery where(String condition, String parameter, Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            parameters.put(parameter, value);
+        }
+        return this;
+    }
+
+    /**
+     * Sort by comma separated fields, a field prefixed with {@code -} is sorted in descending order
+     *
+     * @param sort sort order, nothing is added if {@code null} or blank
+     * @return this query
+     * @throws IllegalArgumentException if a field is not allowed
+     */
+    public ListQuery orderBy(String sort) {
+        for (var field : split(sort)) {
+            var descending = field.startsWith("-");
+            var name = descending ? field.substring(1) : field;
+            orderBy.add(path(name) + (descending ? " desc" : " asc"));
+        }
+        return this;
+    }
+
+    /**
+     * Select only the comma separated fields
+     *
+     * @param fields selected fields, all fields are selected if {@code null} or blank
+     * @return this query
+     * @throws IllegalArgumentException if a field is not allowed
+     */
+    public ListQuery select(String fields) {
+        for (var field : split(fields)) {
+            path(field);
+            if (!selectedFields.contains(field)) {
+                selectedFields.add(field);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return {@code true} if a sort order was given
+     */
+    public boolean isSorted() {
+        return !orderBy.isEmpty();
+    }
+
+    /**
+     * @return {@code true} if only some fields were selected
+     */
+    public boolean isProjected() {
+        return !selectedFields.isEmpty();
+    }
+
+    /**
+     * @return selected fields, empty if all fields are selected
+     */
+    public List<String> getSelectedFields() {
+        return selectedFields;
+    }
+
+    /**
+     * @return values of the parameters of the where clause
+     */
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return paths of the selected fields separated by commas
+     */
+    public String selectClause() {
+        return String.join(", ", selectedFields.stream().map(this::path).toList());
+    }
+
+    /**
+     * @return where clause with a leading space, empty if there are no conditions
+     */
+    public String whereClause() {
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    /**
+     * @param tieBreaker field sorted by last, so the order is total
+     * @return order by clause with a leading space
+     */
+    public String orderByClause(String tieBreaker) {
+        var clauses = new ArrayList<>(orderBy);
+        clauses.add(path(tieBreaker) + " asc");
+        return " order by " + String.join(", ", clauses);
+    }
+
+    /**
+     * Convert rows of a projection of the selected fields to maps from field name to value
+     *
+     * @param rows rows with values of the selected fields in their order
+     * @return list of maps preserving the order of the selected fields
+     */
+    public List<Map<String, Object>> toMaps(List<Object[]> rows) {
+        var result = new ArrayList<Map<String, Object>>(rows.size());
+        for (var row : rows) {
+            var map = new LinkedHashMap<String, Object>();
+            for (int i = 0; i < selectedFields.size(); i++) {
+                map.put(selectedFields.get(i), row[i]);
+            }
+            result.add(map);
+        }
+        return result;
+    }
+
+    private String path(String field) {
+        var path = allowedFields.get(field);
+        if (path == null) {
+            throw new IllegalArgumentException("Unknown field " + field + ", expected one of " + allowedFields.keySet());
+        }
+        return path;
+    }
+
+    private static List<String> split(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return List.of();
+        }
+        return List.of(fields.trim().split("\\s*,\\s*"));
+    }
+}
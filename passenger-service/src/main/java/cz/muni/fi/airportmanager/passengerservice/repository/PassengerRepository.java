@@ -4,53 +4,100 @@ package cz.muni.fi.airportmanager.passengerservice.repository;
 import cz.muni.fi.airportmanager.passengerservice.entity.Notification;
 import cz.muni.fi.airportmanager.passengerservice.entity.Passenger;
 import cz.muni.fi.airportmanager.passengerservice.model.NotificationDto;
+import cz.muni.fi.airportmanager.passengerservice.model.NotificationFilter;
+import cz.muni.fi.airportmanager.passengerservice.model.PassengerDto;
+import cz.muni.fi.airportmanager.passengerservice.model.PassengerFilter;
 import io.quarkus.hibernate.reactive.panache.PanacheRepository;
+import io.quarkus.hibernate.reactive.panache.common.WithSession;
 import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 @ApplicationScoped
 public class PassengerRepository implements PanacheRepository<Passenger> {
 
+    /**
+     * Fields of passengers that can be sorted by and selected in list queries
+     */
+    private static final List<String> PASSENGER_FIELDS = List.of("id", "firstName", "lastName", "email", "flightId");
+
+    /**
+     * Fields of notifications that can be sorted by and selected in list queries, mapped to their paths
+     */
+    private static final Map<String, String> NOTIFICATION_FIELDS = Map.of(
+            "id", "n.id",
+            "message", "n.message",
+            "passengerId", "p.id",
+            "email", "p.email"
+    );
+
+    /**
+     * Select clause projecting passengers directly into {@link PassengerDto}, notifications are not loaded
+     */
+    private static final String DTO_PROJECTION = "select new " + PassengerDto.class.getName()
+            + "(p.id, p.firstName, p.lastName, p.email, p.flightId) from Passenger p";
+
+    /**
+     * Joins notifications with their recipients, a notification of a flight is joined with every passenger of the flight
+     */
+    private static final String NOTIFICATION_JOIN = " from Notification n join Passenger p"
+            + " on p.id = n.passengerId or (n.passengerId is null and p.flightId = n.flightId)";
 
     /**
-     * Find all notifications for a passenger
+     * Find all notifications for a passenger, both those sent to the passenger and those sent to its flight
      *
      * @param passengerId passenger id
-     * @return list of notifications
+     * @return list of notifications ordered by id
      */
     @WithTransaction
     public Uni<List<Notification>> findNotificationsForPassenger(Long passengerId) {
-        return findById(passengerId).onItem().transform(passenger -> {
-            if (passenger == null) {
-                return List.of();
-            }
-            return passenger.getNotifications();
-        });
+        return getSession().chain(session -> session
+                .createQuery("select n" + NOTIFICATION_JOIN + " where p.id = :passengerId order by n.id", Notification.class)
+                .setParameter("passengerId", passengerId)
+                .getResultList());
     }
 
 
     /**
-     * Add notification to a passengers with given flight id
+     * Add notification to passengers with given flight id.
+     * The notification is stored once for the flight and merged into the notifications of its passengers when read,
+     * so the cost does not depend on the number of passengers. It is inserted with a single statement that also
+     * checks the flight has passengers, no entity is loaded into the session.
      *
      * @param flightId     flight id
-     * @param notification notification to add
+     * @param notification notification to add, only its message is used
+     * @return number of inserted notifications, 0 if the flight has no passengers
      */
     @WithTransaction
-    public Uni<Void> addNotificationByFlightId(Long flightId, Notification notification) {
-        // Find passengers by flightId
-        return find("flightId", flightId).list()
-                .onItem().transformToUni(passengers -> {
-                    // Add notification to each passenger
-                    for (Passenger passenger : passengers) {
-                        passenger.addNotification(notification);
-                    }
-                    // Persist changes
-                    return this.persist(passengers);
-                })
-                .replaceWithVoid();
+    public Uni<Integer> addNotificationByFlightId(Long flightId, Notification notification) {
+        // passengers persisted in this session must be flushed to be seen by the statement,
+        // ids come from the sequence of the entity, every value is consumed here so it never overlaps ids allocated by Hibernate
+        return getSession().chain(session -> session.flush()
+                .chain(() -> session.createNativeQuery("insert into notification (id, message, flight_id)"
+                                + " select nextval('notification_seq'), :message, :flightId"
+                                + " where exists (select 1 from passenger where flight_id = :flightId)")
+                        .setParameter("message", notification.message)
+                        .setParameter("flightId", flightId)
+                        .executeUpdate()));
+    }
+
+    /**
+     * Delete all passengers with a single statement
+     *
+     * @return rows of flight id and number of passengers deleted from the flight
+     */
+    @WithTransaction
+    public Uni<List<Object[]>> deleteAllCountingByFlight() {
+        // passengers persisted in this session must be flushed to be deleted by the statement
+        return getSession().chain(session -> session.flush()
+                .chain(() -> session.createNativeQuery("with deleted as (delete from passenger returning flight_id)"
+                                + " select flight_id, count(*) from deleted group by flight_id", Object[].class)
+                        .getResultList()));
     }
 
     /**
@@ -64,16 +111,143 @@ public class PassengerRepository implements PanacheRepository<Passenger> {
     }
 
     /**
-     * Get list of notifications with passenger's email
+     * Find a page of passengers matching the filter, without their notifications.
+     * Passengers ordered by id are paged with the id of the last passenger, sorted passengers with an offset.
      *
-     * @return list of notifications with passenger email
+     * @param filter  filter of the passengers
+     * @param sort    comma separated fields to sort by, prefixed with {@code -} for descending order, ordered by id if {@code null}
+     * @param afterId id of the last passenger of the previous page, only allowed when ordered by id
+     * @param offset  number of passengers skipped, used for pages of sorted passengers
+     * @param limit   maximum number of passengers in the page
+     * @return list of passengers, failed with {@link IllegalArgumentException} if a sort field is unknown
      */
-    public Uni<List<NotificationDto>> findNotificationsWithEmail() {
-        return listAll()
-                .onItem().transform(passengers -> passengers.stream()
-                        .flatMap(passenger -> passenger.getNotifications().stream()
-                                .map(notification -> new NotificationDto(notification.id, notification.message, passenger.getEmail()))
-                        ).toList()
-                );
+    @WithSession
+    public Uni<List<PassengerDto>> findPage(PassengerFilter filter, String sort, long afterId, int offset, int limit) {
+        return Uni.createFrom().item(() -> passengerQuery(filter, sort, afterId))
+                .chain(query -> getSession().chain(session -> {
+                    var select = session.createQuery(DTO_PROJECTION + query.whereClause() + query.orderByClause("id"), PassengerDto.class);
+                    query.getParameters().forEach(select::setParameter);
+                    return select.setFirstResult(offset).setMaxResults(limit).getResultList();
+                }));
+    }
+
+    /**
+     * Find a page of passengers matching the filter, only the selected fields are read
+     *
+     * @param filter  filter of the passengers
+     * @param fields  comma separated fields to select
+     * @param sort    comma separated fields to sort by, prefixed with {@code -} for descending order, ordered by id if {@code null}
+     * @param afterId id of the last passenger of the previous page, only allowed when ordered by id
+     * @param offset  number of passengers skipped, used for pages of sorted passengers
+     * @param limit   maximum number of passengers in the page
+     * @return list of maps from field name to value, failed with {@link IllegalArgumentException} if a field is unknown
+     */
+    @WithSession
+    public Uni<List<Map<String, Object>>> findPageFields(PassengerFilter filter, String fields, String sort, long afterId, int offset, int limit) {
+        return Uni.createFrom().item(() -> passengerQuery(filter, sort, afterId).select(fields))
+                .chain(query -> getSession().chain(session -> {
+                    var select = session.createQuery("select " + query.selectClause() + " from Passenger p"
+                            + query.whereClause() + query.orderByClause("id"), Object[].class);
+                    query.getParameters().forEach(select::setParameter);
+                    return select.setFirstResult(offset).setMaxResults(limit).getResultList().onItem().transform(query::toMaps);
+                }));
+    }
+
+    /**
+     * Find a page of notifications matching the filter, with the email of their passenger.
+     * A notification of a flight is listed once for every passenger of the flight, so the notifications
+     * are ordered by notification id and passenger id and a page starts after both ids of the previous one.
+     *
+     * @param filter           filter of the notifications
+     * @param sort             comma separated fields to sort by, prefixed with {@code -} for descending order, ordered by id if {@code null}
+     * @param afterId          id of the last notification of the previous page, only allowed when ordered by id
+     * @param afterPassengerId id of the passenger of the last notification of the previous page
+     * @param offset           number of notifications skipped, used for pages of sorted notifications
+     * @param limit            maximum number of notifications in the page
+     * @return list of notifications, failed with {@link IllegalArgumentException} if a sort field is unknown
+     */
+    @WithSession
+    public Uni<List<NotificationDto>> findNotificationPage(NotificationFilter filter, String sort, long afterId, long afterPassengerId, int offset, int limit) {
+        return Uni.createFrom().item(() -> notificationQuery(filter, sort, afterId, afterPassengerId))
+                .chain(query -> getSession().chain(session -> {
+                    var select = session.createQuery("select new " + NotificationDto.class.getName() + "(n.id, n.message, p.email, p.id)"
+                            + NOTIFICATION_JOIN + query.whereClause() + query.orderByClause("id") + ", p.id asc", NotificationDto.class);
+                    query.getParameters().forEach(select::setParameter);
+                    return select.setFirstResult(offset).setMaxResults(limit).getResultList();
+                }));
+    }
+
+    /**
+     * Find a page of notifications matching the filter, only the selected fields are read
+     *
+     * @param filter           filter of the notifications
+     * @param fields           comma separated fields to select
+     * @param sort             comma separated fields to sort by, prefixed with {@code -} for descending order, ordered by id if {@code null}
+     * @param afterId          id of the last notification of the previous page, only allowed when ordered by id
+     * @param afterPassengerId id of the passenger of the last notification of the previous page
+     * @param offset           number of notifications skipped, used for pages of sorted notifications
+     * @param limit            maximum number of notifications in the page
+     * @return list of maps from field name to value, failed with {@link IllegalArgumentException} if a field is unknown
+     */
+    @WithSession
+    public Uni<List<Map<String, Object>>> findNotificationPageFields(NotificationFilter filter, String fields, String sort,
+                                                                    long afterId, long afterPassengerId, int offset, int limit) {
+        return Uni.createFrom().item(() -> notificationQuery(filter, sort, afterId, afterPassengerId).select(fields))
+                .chain(query -> getSession().chain(session -> {
+                    var select = session.createQuery("select " + query.selectClause()
+                            + NOTIFICATION_JOIN + query.whereClause() + query.orderByClause("id") + ", p.id asc", Object[].class);
+                    query.getParameters().forEach(select::setParameter);
+                    return select.setFirstResult(offset).setMaxResults(limit).getResultList().onItem().transform(query::toMaps);
+                }));
+    }
+
+    /**
+     * Stream notifications matching the filter ordered by id.
+     * Notifications are fetched page by page using the ids of the last emitted notification as a cursor,
+     * so only one page is held in memory at a time.
+     *
+     * @param filter    filter of the notifications
+     * @param chunkSize number of notifications fetched from the database at once
+     * @return stream of notifications
+     */
+    public Multi<NotificationDto> streamNotifications(NotificationFilter filter, int chunkSize) {
+        return Multi.createBy().repeating()
+                .uni(() -> new AtomicReference<>(new NotificationDto(0L, null, null, 0L)), cursor -> findNotificationPage(filter, null,
+                        cursor.get().id, cursor.get().passengerId, 0, chunkSize)
+                        .onItem().invoke(notifications -> {
+                            if (!notifications.isEmpty()) {
+                                cursor.set(notifications.get(notifications.size() - 1));
+                            }
+                        }))
+                .until(List::isEmpty)
+                .onItem().disjoint();
+    }
+
+    private static ListQuery passengerQuery(PassengerFilter filter, String sort, long afterId) {
+        var query = ListQuery.of("p", PASSENGER_FIELDS)
+                .where("p.flightId = :flightId", "flightId", filter.flightId)
+                .where("p.email = :email", "email", filter.email)
+                .where("p.lastName = :lastName", "lastName", filter.lastName)
+                .where("p.id > :afterId", "afterId", afterId > 0 ? afterId : null)
+                .orderBy(sort);
+        if (query.isSorted() && afterId > 0) {
+            throw new IllegalArgumentException("Cursor can only be used with passengers ordered by id");
+        }
+        return query;
+    }
+
+    private static ListQuery notificationQuery(NotificationFilter filter, String sort, long afterId, long afterPassengerId) {
+        var cursor = afterId > 0;
+        var query = new ListQuery(NOTIFICATION_FIELDS)
+                .where("p.id = :passengerId", "passengerId", filter.passengerId)
+                .where("p.email = :email", "email", filter.email)
+                // (n.id, p.id) > (afterId, afterPassengerId), the first condition can use the primary key
+                .where("n.id >= :afterId", "afterId", cursor ? afterId : null)
+                .where("(n.id > :afterId or p.id > :afterPassengerId)", "afterPassengerId", cursor ? afterPassengerId : null)
+                .orderBy(sort);
+        if (query.isSorted() && cursor) {
+            throw new IllegalArgumentException("Cursor can only be used with notifications ordered by id");
+        }
+        return query;
     }
 }
@@ -1,24 +1,30 @@
 package cz.muni.fi.airportmanager.passengerservice.resource;
 
-import cz.muni.fi.airportmanager.passengerservice.entity.Notification;
 import cz.muni.fi.airportmanager.passengerservice.model.NotificationDto;
+import cz.muni.fi.airportmanager.passengerservice.model.NotificationFilter;
 import cz.muni.fi.airportmanager.passengerservice.model.examples.Examples;
 import cz.muni.fi.airportmanager.passengerservice.service.NotificationService;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.ExampleObject;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import org.jboss.resteasy.reactive.RestResponse;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import org.jboss.resteasy.reactive.common.util.RestMediaType;
 
 import java.util.List;
 
@@ -28,28 +34,84 @@ import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
 @Tag(name = "Notification", description = "Notification API")
 public class NotificationResource {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Inject
     NotificationService notificationService;
 
     /**
-     * Get list of all notifications
+     * Get a page of notifications matching the filter
+     *
+     * A notification of a flight is listed once for every passenger of the flight. Without a sort order
+     * the notifications are ordered by id and passenger id and the next page starts after both ids of the last one,
+     * sorted notifications are paged with an offset.
      *
-     * @return list of all notifications
+     * @param after          id of the last notification of the previous page
+     * @param afterPassenger id of the passenger of the last notification of the previous page
+     * @param offset         number of notifications skipped, only used with a sort order
+     * @param limit          maximum number of notifications in the page
+     * @param passengerId    passenger of the notifications
+     * @param email          email of the passenger of the notifications
+     * @param sort           comma separated fields to sort by, prefixed with {@code -} for descending order
+     * @param fields         comma separated fields to return, all fields if not given
+     * @return page of notifications
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    @Operation(summary = "Get list of all notifications")
+    @Operation(summary = "Get a page of notifications matching the filter")
     @APIResponse(
             responseCode = "200",
-            description = "List of all notifications",
+            description = "Page of notifications, the id and passenger id of the last notification are the cursor of the next page",
             content = @Content(
                     mediaType = APPLICATION_JSON,
-                    schema = @Schema(implementation = Notification.class, required = true),
+                    schema = @Schema(implementation = NotificationDto.class, required = true),
                     examples = @ExampleObject(name = "flight", value = Examples.VALID_NOTIFICATION_LIST)
             )
     )
-    public Uni<RestResponse<List<NotificationDto>>> list() {
-        return notificationService.listAll().onItem().transform(notifications -> RestResponse.status(Response.Status.OK, notifications));
+    @APIResponse(
+            responseCode = "400",
+            description = "Invalid page limit or offset, unknown sort or selected field, or cursor used with a sort order"
+    )
+    public Uni<RestResponse<List<?>>> list(
+            @Parameter(name = "after", description = "Id of the last notification of the previous page") @QueryParam("after") @DefaultValue("0") long after,
+            @Parameter(name = "afterPassenger", description = "Id of the passenger of the last notification of the previous page") @QueryParam("afterPassenger") @DefaultValue("0") long afterPassenger,
+            @Parameter(name = "offset", description = "Number of notifications skipped, only used with a sort order") @QueryParam("offset") @DefaultValue("0") int offset,
+            @Parameter(name = "limit", description = "Maximum number of notifications in the page (1 - " + MAX_PAGE_SIZE + ")") @QueryParam("limit") @DefaultValue("100") int limit,
+            @Parameter(name = "passengerId", description = "Passenger of the notifications") @QueryParam("passengerId") Long passengerId,
+            @Parameter(name = "email", description = "Email of the passenger of the notifications") @QueryParam("email") String email,
+            @Parameter(name = "sort", description = "Comma separated fields to sort by, prefixed with - for descending order, e.g. email,-id") @QueryParam("sort") String sort,
+            @Parameter(name = "fields", description = "Comma separated fields to return, e.g. id,message") @QueryParam("fields") String fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE || offset < 0) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.BAD_REQUEST));
+        }
+        var notifications = fields != null && !fields.isBlank()
+                ? notificationService.listPageFields(filter(passengerId, email), fields, sort, after, afterPassenger, offset, limit)
+                : notificationService.listPage(filter(passengerId, email), sort, after, afterPassenger, offset, limit);
+        return notifications
+                .onItem().transform(list -> RestResponse.<List<?>>status(Response.Status.OK, list))
+                .onFailure(IllegalArgumentException.class).recoverWithItem(RestResponse.status(Response.Status.BAD_REQUEST));
+    }
+
+    /**
+     * Stream all notifications matching the filter as newline delimited JSON, read from the database page by page
+     *
+     * @param passengerId passenger of the notifications
+     * @param email       email of the passenger of the notifications
+     * @return stream of notifications ordered by id
+     */
+    @GET
+    @Path("/export")
+    @Produces(RestMediaType.APPLICATION_NDJSON)
+    @RestStreamElementType(APPLICATION_JSON)
+    @Operation(summary = "Stream notifications matching the filter as newline delimited JSON")
+    @APIResponse(
+            responseCode = "200",
+            description = "Stream of notifications, one JSON object per line"
+    )
+    public Multi<NotificationDto> export(
+            @Parameter(name = "passengerId", description = "Passenger of the notifications") @QueryParam("passengerId") Long passengerId,
+            @Parameter(name = "email", description = "Email of the passenger of the notifications") @QueryParam("email") String email) {
+        return notificationService.stream(filter(passengerId, email));
     }
 
     /**
@@ -65,5 +127,10 @@ public class NotificationResource {
         return notificationService.deleteAll().onItem().transform(ignored -> RestResponse.status(Response.Status.OK));
     }
 
-
+    private static NotificationFilter filter(Long passengerId, String email) {
+        var filter = new NotificationFilter();
+        filter.passengerId = passengerId;
+        filter.email = email;
+        return filter;
+    }
 }
@@ -3,20 +3,28 @@ package cz.muni.fi.airportmanager.passengerservice.resource;
 import cz.muni.fi.airportmanager.passengerservice.entity.Notification;
 import cz.muni.fi.airportmanager.passengerservice.entity.Passenger;
 import cz.muni.fi.airportmanager.passengerservice.model.CreatePassengerDto;
+import cz.muni.fi.airportmanager.passengerservice.model.PassengerDto;
+import cz.muni.fi.airportmanager.passengerservice.model.PassengerFilter;
 import cz.muni.fi.airportmanager.passengerservice.model.examples.Examples;
+import cz.muni.fi.airportmanager.passengerservice.provider.BinaryMediaType;
 import cz.muni.fi.airportmanager.passengerservice.service.PassengerService;
 import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Variant;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.ExampleObject;
@@ -38,28 +46,85 @@ import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
 @Tag(name = "Passenger", description = "Passenger CRUD API")
 public class PassengerResource {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Media types of passengers, JSON is used when the client accepts any of them
+     */
+    private static final List<Variant> VARIANTS = Variant.mediaTypes(
+            MediaType.APPLICATION_JSON_TYPE,
+            MediaType.valueOf(BinaryMediaType.APPLICATION_PROTOBUF),
+            MediaType.valueOf(BinaryMediaType.APPLICATION_CBOR)
+    ).build();
+
     @Inject
     PassengerService passengerService;
 
     /**
-     * Get list of all passengers
+     * Get a page of passengers matching the filter, without their notifications
+     *
+     * Without a sort order the passengers are ordered by id and the next page starts after the last id,
+     * sorted passengers are paged with an offset.
      *
-     * @return list of all passengers
+     * @param after    id of the last passenger of the previous page
+     * @param offset   number of passengers skipped, only used with a sort order
+     * @param limit    maximum number of passengers in the page
+     * @param flightId flight of the passengers
+     * @param email    email of the passengers
+     * @param lastName last name of the passengers
+     * @param sort     comma separated fields to sort by, prefixed with {@code -} for descending order
+     * @param fields   comma separated fields to return, all fields if not given, not available as protobuf
+     * @param request  request with the accepted media types
+     * @return page of passengers
      */
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    @Operation(summary = "Get list of all passengers")
+    @Produces({MediaType.APPLICATION_JSON, BinaryMediaType.APPLICATION_PROTOBUF, BinaryMediaType.APPLICATION_CBOR})
+    @Operation(summary = "Get a page of passengers matching the filter")
     @APIResponse(
             responseCode = "200",
-            description = "List of all passengers",
+            description = "Page of passengers without notifications, the id of the last passenger is the cursor of the next page",
             content = @Content(
                     mediaType = APPLICATION_JSON,
-                    schema = @Schema(implementation = Passenger.class, required = true),
+                    schema = @Schema(implementation = PassengerDto.class, required = true),
                     examples = @ExampleObject(name = "flight", value = Examples.VALID_PASSENGER_LIST)
             )
     )
-    public Uni<RestResponse<List<Passenger>>> list() {
-        return passengerService.listAll().onItem().transform(passengers -> RestResponse.status(Response.Status.OK, passengers));
+    @APIResponse(
+            responseCode = "400",
+            description = "Invalid page limit or offset, unknown sort or selected field, or cursor used with a sort order"
+    )
+    @APIResponse(
+            responseCode = "406",
+            description = "No accepted media type, or selected fields requested as protobuf"
+    )
+    public Uni<RestResponse<List<?>>> list(
+            @Parameter(name = "after", description = "Id of the last passenger of the previous page") @QueryParam("after") @DefaultValue("0") long after,
+            @Parameter(name = "offset", description = "Number of passengers skipped, only used with a sort order") @QueryParam("offset") @DefaultValue("0") int offset,
+            @Parameter(name = "limit", description = "Maximum number of passengers in the page (1 - " + MAX_PAGE_SIZE + ")") @QueryParam("limit") @DefaultValue("100") int limit,
+            @Parameter(name = "flightId", description = "Flight of the passengers") @QueryParam("flightId") Long flightId,
+            @Parameter(name = "email", description = "Email of the passengers") @QueryParam("email") String email,
+            @Parameter(name = "lastName", description = "Last name of the passengers") @QueryParam("lastName") String lastName,
+            @Parameter(name = "sort", description = "Comma separated fields to sort by, prefixed with - for descending order, e.g. lastName,-id") @QueryParam("sort") String sort,
+            @Parameter(name = "fields", description = "Comma separated fields to return, e.g. id,email") @QueryParam("fields") String fields,
+            @Context Request request) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE || offset < 0) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.BAD_REQUEST));
+        }
+        var variant = request.selectVariant(VARIANTS);
+        var projected = fields != null && !fields.isBlank();
+        if (variant == null || (projected && variant.getMediaType().isCompatible(MediaType.valueOf(BinaryMediaType.APPLICATION_PROTOBUF)))) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.NOT_ACCEPTABLE));
+        }
+        var filter = new PassengerFilter();
+        filter.flightId = flightId;
+        filter.email = email;
+        filter.lastName = lastName;
+        var passengers = projected
+                ? passengerService.listPageFields(filter, fields, sort, after, offset, limit)
+                : passengerService.listPage(filter, sort, after, offset, limit);
+        return passengers
+                .onItem().transform(list -> RestResponse.ResponseBuilder.<List<?>>ok(list).type(variant.getMediaType()).build())
+                .onFailure(IllegalArgumentException.class).recoverWithItem(RestResponse.status(Response.Status.BAD_REQUEST));
     }
 
     /**
@@ -81,22 +146,32 @@ public class PassengerResource {
                     examples = @ExampleObject(name = "flight", value = Examples.VALID_PASSENGER)
             )
     )
+    @APIResponse(
+            responseCode = "400",
+            description = "Flight of the passenger does not exist"
+    )
+    @APIResponse(
+            responseCode = "409",
+            description = "No seat available on the flight of the passenger"
+    )
     public Uni<RestResponse<Passenger>> create(
             @Schema(implementation = CreatePassengerDto.class, required = true)
             CreatePassengerDto passenger) {
         return passengerService.createPassenger(passenger)
-                .onItem().transform(createdPassenger -> RestResponse.status(Response.Status.CREATED, createdPassenger));
+                .onItem().transform(createdPassenger -> RestResponse.status(Response.Status.CREATED, createdPassenger))
+                .onFailure(IllegalArgumentException.class).recoverWithItem(() -> RestResponse.status(Response.Status.BAD_REQUEST))
+                .onFailure(IllegalStateException.class).recoverWithItem(() -> RestResponse.status(Response.Status.CONFLICT));
     }
 
     /**
-     * Get passenger by id
+     * Get passenger by id with its notifications
      *
      * @param id id of passenger
      * @return passenger with given id
      */
     @GET
     @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, BinaryMediaType.APPLICATION_PROTOBUF, BinaryMediaType.APPLICATION_CBOR})
     @Operation(summary = "Get passenger by id")
     @APIResponse(
             responseCode = "200",
@@ -122,25 +197,38 @@ public class PassengerResource {
     }
 
     /**
-     * Get passengers for a flight by flight id
+     * Get a page of passengers for a flight by flight id, without their notifications
      * @param flightId flight id
-     *                 @return list of passengers for a flight
+     * @param after    id of the last passenger of the previous page
+     * @param limit    maximum number of passengers in the page
+     *                 @return page of passengers for a flight ordered by id
      */
     @GET
     @Path("/flight/{flightId}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, BinaryMediaType.APPLICATION_PROTOBUF, BinaryMediaType.APPLICATION_CBOR})
     @Operation(summary = "Get passengers for a flight by flight id")
     @APIResponse(
             responseCode = "200",
-            description = "List of passengers for a flight",
+            description = "Page of passengers for a flight without notifications, the id of the last passenger is the cursor of the next page",
             content = @Content(
                     mediaType = APPLICATION_JSON,
-                    schema = @Schema(implementation = Passenger.class, required = true),
+                    schema = @Schema(implementation = PassengerDto.class, required = true),
                     examples = @ExampleObject(name = "flight", value = Examples.VALID_PASSENGER_LIST)
             )
     )
-    public Uni<RestResponse<List<Passenger>>> getPassengersForFlight(@Parameter(name = "flightId", required = true, description = "Flight id") @PathParam("flightId") Long flightId) {
-        return passengerService.getPassengersForFlight(flightId)
+    @APIResponse(
+            responseCode = "400",
+            description = "Invalid page limit"
+    )
+    public Uni<RestResponse<List<PassengerDto>>> getPassengersForFlight(
+            @Parameter(name = "flightId", required = true, description = "Flight id") @PathParam("flightId") Long flightId,
+            @Parameter(name = "after", description = "Id of the last passenger of the previous page") @QueryParam("after") @DefaultValue("0") long after,
+            @Parameter(name = "offset", description = "Number of passengers skipped, only used with a sort order") @QueryParam("offset") @DefaultValue("0") int offset,
+            @Parameter(name = "limit", description = "Maximum number of passengers in the page (1 - " + MAX_PAGE_SIZE + ")") @QueryParam("limit") @DefaultValue("100") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Uni.createFrom().item(RestResponse.status(Response.Status.BAD_REQUEST));
+        }
+        return passengerService.getPassengersForFlight(flightId, after, limit)
                 .onItem().transform(passengers -> RestResponse.status(Response.Status.OK, passengers));
     }
 
@@ -151,7 +239,7 @@ public class PassengerResource {
      */
     @GET
     @Path("/{passengerId}/notifications")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, BinaryMediaType.APPLICATION_PROTOBUF, BinaryMediaType.APPLICATION_CBOR})
     @Operation(summary = "Get all notifications for a passenger")
     @APIResponse(
             responseCode = "200",
@@ -2,13 +2,17 @@ package cz.muni.fi.airportmanager.passengerservice.service;
 
 import cz.muni.fi.airportmanager.passengerservice.entity.Notification;
 import cz.muni.fi.airportmanager.passengerservice.model.NotificationDto;
+import cz.muni.fi.airportmanager.passengerservice.model.NotificationFilter;
 import cz.muni.fi.airportmanager.passengerservice.repository.PassengerRepository;
 import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.util.List;
+import java.util.Map;
 
 @ApplicationScoped
 public class NotificationService {
@@ -16,6 +20,11 @@ public class NotificationService {
     @Inject
     PassengerRepository passengerRepository;
 
+    /**
+     * Number of notifications fetched from the database at once when streaming notifications
+     */
+    @ConfigProperty(name = "passenger.notification.stream.chunk-size", defaultValue = "500")
+    int streamChunkSize;
 
     /**
      * Delete all notifications
@@ -28,13 +37,44 @@ public class NotificationService {
     }
 
     /**
-     * Get list of all notifications
+     * Get a page of notifications matching the filter, a notification of a flight is listed for every passenger of the flight
      *
-     * @return list of all notifications
+     * @param filter           filter of the notifications
+     * @param sort             comma separated fields to sort by, prefixed with {@code -} for descending order
+     * @param afterId          id of the last notification of the previous page, only allowed when ordered by id
+     * @param afterPassengerId id of the passenger of the last notification of the previous page
+     * @param offset           number of notifications skipped, used for pages of sorted notifications
+     * @param limit            maximum number of notifications in the page
+     * @return list of notifications, failed with {@link IllegalArgumentException} if a sort field is unknown
      */
-    @WithTransaction
-    public Uni<List<NotificationDto>> listAll() {
-        return passengerRepository.findNotificationsWithEmail();
+    public Uni<List<NotificationDto>> listPage(NotificationFilter filter, String sort, long afterId, long afterPassengerId, int offset, int limit) {
+        return passengerRepository.findNotificationPage(filter, sort, afterId, afterPassengerId, offset, limit);
+    }
+
+    /**
+     * Get selected fields of a page of notifications matching the filter
+     *
+     * @param filter           filter of the notifications
+     * @param fields           comma separated fields to select
+     * @param sort             comma separated fields to sort by, prefixed with {@code -} for descending order
+     * @param afterId          id of the last notification of the previous page, only allowed when ordered by id
+     * @param afterPassengerId id of the passenger of the last notification of the previous page
+     * @param offset           number of notifications skipped, used for pages of sorted notifications
+     * @param limit            maximum number of notifications in the page
+     * @return list of maps from field name to value, failed with {@link IllegalArgumentException} if a field is unknown
+     */
+    public Uni<List<Map<String, Object>>> listPageFields(NotificationFilter filter, String fields, String sort,
+                                                        long afterId, long afterPassengerId, int offset, int limit) {
+        return passengerRepository.findNotificationPageFields(filter, fields, sort, afterId, afterPassengerId, offset, limit);
     }
 
+    /**
+     * Stream notifications matching the filter ordered by id
+     *
+     * @param filter filter of the notifications
+     * @return stream of notifications
+     */
+    public Multi<NotificationDto> stream(NotificationFilter filter) {
+        return passengerRepository.streamNotifications(filter, streamChunkSize);
+    }
 }
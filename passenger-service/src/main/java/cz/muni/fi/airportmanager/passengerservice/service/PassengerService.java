@@ -3,11 +3,20 @@ package cz.muni.fi.airportmanager.passengerservice.service;
 import cz.muni.fi.airportmanager.passengerservice.entity.Notification;
 import cz.muni.fi.airportmanager.passengerservice.entity.Passenger;
 import cz.muni.fi.airportmanager.passengerservice.model.CreatePassengerDto;
+import cz.muni.fi.airportmanager.passengerservice.model.PassengerDto;
+import cz.muni.fi.airportmanager.passengerservice.model.PassengerFilter;
 import cz.muni.fi.airportmanager.passengerservice.repository.PassengerRepository;
+import cz.muni.fi.airportmanager.proto.MutinySeatReservationGrpc;
+import cz.muni.fi.airportmanager.proto.SeatReservationRequest;
+import io.quarkus.grpc.GrpcClient;
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
 import java.util.HashMap;
 import java.util.List;
@@ -16,68 +25,115 @@ import java.util.Map;
 @ApplicationScoped // This bean will be created once per application and live as long as the application lives
 public class PassengerService {
 
+    private static final Logger LOG = Logger.getLogger(PassengerService.class);
+
     @Inject
     PassengerRepository passengerRepository;
 
+    @GrpcClient("flight-service")
+    MutinySeatReservationGrpc.MutinySeatReservationStub seatReservationStub;
+
+    /**
+     * Whether seats of passengers are reserved in flight service
+     */
+    @ConfigProperty(name = "passenger.seat-reservation.enabled", defaultValue = "true")
+    boolean seatReservationEnabled;
+
     /**
-     * Get list of all passengers
+     * Get a page of passengers matching the filter, without their notifications
      *
-     * @return list of all passengers
+     * @param filter  filter of the passengers
+     * @param sort    comma separated fields to sort by, prefixed with {@code -} for descending order
+     * @param afterId id of the last passenger of the previous page, only allowed when ordered by id
+     * @param offset  number of passengers skipped, used for pages of sorted passengers
+     * @param limit   maximum number of passengers in the page
+     * @return list of passengers, failed with {@link IllegalArgumentException} if a sort field is unknown
      */
-    @WithTransaction
-    public Uni<List<Passenger>> listAll() {
-        return passengerRepository.listAll();
+    public Uni<List<PassengerDto>> listPage(PassengerFilter filter, String sort, long afterId, int offset, int limit) {
+        return passengerRepository.findPage(filter, sort, afterId, offset, limit);
+    }
+
+    /**
+     * Get selected fields of a page of passengers matching the filter
+     *
+     * @param filter  filter of the passengers
+     * @param fields  comma separated fields to select
+     * @param sort    comma separated fields to sort by, prefixed with {@code -} for descending order
+     * @param afterId id of the last passenger of the previous page, only allowed when ordered by id
+     * @param offset  number of passengers skipped, used for pages of sorted passengers
+     * @param limit   maximum number of passengers in the page
+     * @return list of maps from field name to value, failed with {@link IllegalArgumentException} if a field is unknown
+     */
+    public Uni<List<Map<String, Object>>> listPageFields(PassengerFilter filter, String fields, String sort, long afterId, int offset, int limit) {
+        return passengerRepository.findPageFields(filter, fields, sort, afterId, offset, limit);
     }
 
     /**
-     * Get passenger by id
+     * Get passenger by id with its notifications, including the notifications of its flight
      *
      * @param id passenger id
      * @return passenger with given id
      */
     @WithTransaction
     public Uni<Passenger> getPassenger(Long id) {
-        return passengerRepository.findById(id);
+        return passengerRepository.findById(id)
+                .chain(passenger -> passenger == null
+                        ? Uni.createFrom().nullItem()
+                        : passengerRepository.findNotificationsForPassenger(id).onItem().transform(passenger::withNotifications));
     }
 
     /**
-     * Get passengers for given flight id
+     * Get a page of passengers for given flight id, without their notifications
      *
      * @param flightId flight id
-     * @return list of passengers for given flight id
+     * @param afterId  id of the last passenger of the previous page
+     * @param limit    maximum number of passengers in the page
+     * @return list of passengers for given flight id ordered by id
      */
-    @WithTransaction
-    public Uni<List<Passenger>> getPassengersForFlight(Long flightId) {
-        return passengerRepository.findPassengersForFlight(flightId);
+    public Uni<List<PassengerDto>> getPassengersForFlight(Long flightId, long afterId, int limit) {
+        var filter = new PassengerFilter();
+        filter.flightId = flightId;
+        return passengerRepository.findPage(filter, null, afterId, 0, limit);
     }
 
     /**
-     * Create a new passenger
+     * Create a new passenger, a seat on the flight of the passenger is reserved first
      *
      * @param passenger passenger to create.
      * @return created passenger
+     * @throws IllegalArgumentException if the flight of the passenger does not exist
+     * @throws IllegalStateException    if there is no seat available on the flight of the passenger
      */
-    @WithTransaction
     public Uni<Passenger> createPassenger(CreatePassengerDto passenger) {
-        return passengerRepository.persist(Passenger.fromDto(passenger));
+        return reserveSeat(passenger.flightId)
+                .chain(() -> Panache.withTransaction(() -> passengerRepository.persist(Passenger.fromDto(passenger)))
+                        .onFailure().call(() -> releaseSeat(passenger.flightId)));
     }
 
     /**
-     * Delete passenger
+     * Delete passenger, the seat of the passenger is released after the passenger is deleted
      *
      * @param id passenger id
      */
-    @WithTransaction
     public Uni<Boolean> deletePassenger(Long id) {
-        return passengerRepository.deleteById(id);
+        return Panache.withTransaction(() -> passengerRepository.findById(id)
+                        .chain(passenger -> passengerRepository.deleteById(id)
+                                .onItem().transform(deleted -> new Deletion(Boolean.TRUE.equals(deleted), passenger == null ? null : passenger.getFlightId()))))
+                .call(deletion -> deletion.deleted() ? releaseSeat(deletion.flightId()) : Uni.createFrom().voidItem())
+                .onItem().transform(Deletion::deleted);
     }
 
     /**
-     * Delete all passengers
+     * Delete all passengers, the seats of the passengers are released after the passengers are deleted
+     *
+     * @return number of deleted passengers
      */
-    @WithTransaction
     public Uni<Long> deleteAllPassengers() {
-        return passengerRepository.deleteAll();
+        return Panache.withTransaction(() -> passengerRepository.deleteAllCountingByFlight())
+                .call(rows -> Multi.createFrom().iterable(rows)
+                        .onItem().transformToUniAndConcatenate(row -> releaseSeats((Long) row[0], Math.toIntExact((Long) row[1])))
+                        .collect().last())
+                .onItem().transform(rows -> rows.stream().mapToLong(row -> (Long) row[1]).sum());
     }
 
     /**
@@ -85,14 +141,28 @@ public class PassengerService {
      *
      * @param flightId     flight id
      * @param notification notification to add
+     * @return number of inserted notifications, 0 if the flight has no passengers
      */
     @WithTransaction
-    public Uni<Void> addNotificationByFlightId(Long flightId, Notification notification) {
+    public Uni<Integer> addNotificationByFlightId(Long flightId, Notification notification) {
         return passengerRepository.addNotificationByFlightId(flightId, notification);
     }
 
 
 
+    /**
+     * Add notifications to passengers of multiple flights in a single transaction
+     *
+     * @param notifications notification to add for each flight id
+     */
+    @WithTransaction
+    public Uni<Void> addNotificationsByFlightIds(Map<Long, Notification> notifications) {
+        return Multi.createFrom().iterable(notifications.entrySet())
+                .onItem().transformToUniAndConcatenate(entry -> passengerRepository.addNotificationByFlightId(entry.getKey(), entry.getValue()))
+                .collect().last()
+                .replaceWithVoid();
+    }
+
     /**
      * Get all notifications for passenger
      *
@@ -103,4 +173,37 @@ public class PassengerService {
     public Uni<List<Notification>> findNotificationsForPassenger(Long passengerId) {
         return passengerRepository.findNotificationsForPassenger(passengerId);
     }
+
+    private Uni<Void> reserveSeat(Long flightId) {
+        if (!seatReservationEnabled || flightId == null) {
+            return Uni.createFrom().voidItem();
+        }
+        return seatReservationStub.reserveSeat(SeatReservationRequest.newBuilder().setFlightId(flightId).build())
+                .onItem().transform(response -> switch (response.getStatus()) {
+                    case SeatReserved -> null;
+                    case FlightNotFound -> throw new IllegalArgumentException("Flight with id " + flightId + " does not exist");
+                    default -> throw new IllegalStateException("No seat available on flight " + flightId);
+                })
+                .replaceWithVoid();
+    }
+
+    private Uni<Void> releaseSeat(Long flightId) {
+        return releaseSeats(flightId, 1);
+    }
+
+    /**
+     * Release seats reserved on the flight, failures are only logged as the passenger change is already done
+     */
+    private Uni<Void> releaseSeats(Long flightId, int seats) {
+        if (!seatReservationEnabled || flightId == null) {
+            return Uni.createFrom().voidItem();
+        }
+        return seatReservationStub.releaseSeat(SeatReservationRequest.newBuilder().setFlightId(flightId).setSeats(seats).build())
+                .onFailure().invoke(failure -> LOG.warnf(failure, "Failed to release %d seats on flight %d", seats, flightId))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    private record Deletion(boolean deleted, Long flightId) {
+    }
 }
@@ -0,0 +1,26 @@
+create sequence passenger_seq start with 1 increment by 50;
+create sequence notification_seq start with 1 increment by 50;
+
+create table passenger
+(
+    id         bigint not null,
+    first_name varchar(255),
+    last_name  varchar(255),
+    email      varchar(255),
+    flight_id  bigint,
+    primary key (id)
+);
+
+create table notification
+(
+    id           bigint not null,
+    message      varchar(255),
+    passenger_id bigint,
+    primary key (id),
+    constraint notification_passenger_fk foreign key (passenger_id) references passenger (id)
+);
+
+-- passengers of a flight
+create index passenger_flight_id_idx on passenger (flight_id);
+-- notifications of a passenger
+create index notification_passenger_id_idx on notification (passenger_id);
@@ -0,0 +1,9 @@
+-- notifications of a whole flight are stored once, without a passenger, and merged into the inbox of
+-- every passenger of the flight when read
+alter table notification add column flight_id bigint;
+
+alter table notification
+    add constraint notification_recipient_check check (passenger_id is not null or flight_id is not null);
+
+-- notifications of a flight
+create index notification_flight_id_idx on notification (flight_id) where passenger_id is null;
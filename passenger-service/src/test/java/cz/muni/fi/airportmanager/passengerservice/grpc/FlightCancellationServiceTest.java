@@ -2,6 +2,7 @@ package cz.muni.fi.airportmanager.passengerservice.grpc;
 
 import cz.muni.fi.airportmanager.proto.FlightCancellationRequest;
 import cz.muni.fi.airportmanager.proto.FlightCancellationResponseStatus;
+import cz.muni.fi.airportmanager.proto.FlightsCancellationRequest;
 import cz.muni.fi.airportmanager.proto.MutinyFlightCancellationGrpc;
 import io.quarkus.grpc.GrpcClient;
 import io.quarkus.test.junit.QuarkusTest;
@@ -25,4 +26,17 @@ class FlightCancellationServiceTest {
                     assertEquals(FlightCancellationResponseStatus.Cancelled, response.getStatus());
                 });
     }
-}
\ No newline at end of file
+
+    @Test
+    @RunOnVertxContext
+    void testCancelFlights(UniAsserter asserter) {
+        asserter.assertThat(() -> flightCancellationStub.cancelFlights(FlightsCancellationRequest.newBuilder().addIds(1).addIds(2).setReason("Storm").build()),
+                response -> {
+                    assertEquals(2, response.getResultsCount());
+                    assertEquals(1, response.getResults(0).getId());
+                    assertEquals(FlightCancellationResponseStatus.Cancelled, response.getResults(0).getStatus());
+                    assertEquals(2, response.getResults(1).getId());
+                    assertEquals(FlightCancellationResponseStatus.Cancelled, response.getResults(1).getStatus());
+                });
+    }
+}
@@ -3,6 +3,8 @@ package cz.muni.fi.airportmanager.passengerservice.repository;
 import cz.muni.fi.airportmanager.passengerservice.entity.Notification;
 import cz.muni.fi.airportmanager.passengerservice.entity.Passenger;
 import cz.muni.fi.airportmanager.passengerservice.model.NotificationDto;
+import cz.muni.fi.airportmanager.passengerservice.model.NotificationFilter;
+import cz.muni.fi.airportmanager.passengerservice.model.PassengerFilter;
 import io.quarkus.test.TestReactiveTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.vertx.UniAsserter;
@@ -10,6 +12,8 @@ import jakarta.inject.Inject;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -69,13 +73,79 @@ class PassengerRepositoryTest {
 
         asserter
                 .execute(() -> passengerRepository.persist(passenger))
-                .execute(() -> passengerRepository.addNotificationByFlightId(passenger.getFlightId(), notification))
+                .assertThat(
+                        () -> passengerRepository.addNotificationByFlightId(passenger.getFlightId(), notification),
+                        inserted -> assertEquals(1, inserted)
+                )
                 .assertThat(
                         () -> passengerRepository.findNotificationsForPassenger(passenger.getId()),
                         notifications -> assertTrue(notifications.stream().anyMatch(n -> n.message.equals(notification.message)))
                 );
     }
 
+    @Test
+    @TestReactiveTransaction
+    void shouldMergeFlightNotificationsIntoInboxOfEveryPassenger(UniAsserter asserter) {
+        Passenger first = createTestPassenger();
+        Passenger second = createTestPassenger();
+        second.setEmail("janedoe@example.com");
+        Notification targeted = createTestNotification();
+        targeted.message = "Only for the first passenger";
+        Notification flightNotification = createTestNotification();
+
+        asserter
+                .execute(() -> passengerRepository.persist(first, second))
+                .execute(() -> {
+                    first.addNotification(targeted);
+                    return passengerRepository.persist(first);
+                })
+                .execute(() -> passengerRepository.addNotificationByFlightId(first.getFlightId(), flightNotification))
+                .assertThat(
+                        () -> passengerRepository.findNotificationsForPassenger(first.getId()),
+                        notifications -> assertEquals(2, notifications.size())
+                )
+                .assertThat(
+                        () -> passengerRepository.findNotificationsForPassenger(second.getId()),
+                        notifications -> {
+                            assertEquals(1, notifications.size());
+                            assertEquals(flightNotification.message, notifications.get(0).message);
+                        }
+                )
+                .assertThat(
+                        () -> passengerRepository.streamNotifications(new NotificationFilter(), 2).collect().asList(),
+                        notifications -> {
+                            // the flight notification is stored once but listed for both passengers
+                            assertEquals(3, notifications.size());
+                            assertEquals(2, notifications.stream().filter(n -> n.message.equals(flightNotification.message)).count());
+                        }
+                );
+    }
+
+    @Test
+    @TestReactiveTransaction
+    void shouldPageFlightNotificationByPassenger(UniAsserter asserter) {
+        Passenger first = createTestPassenger();
+        Passenger second = createTestPassenger();
+        Notification flightNotification = createTestNotification();
+        var filter = new NotificationFilter();
+
+        asserter
+                .execute(() -> passengerRepository.persist(first, second))
+                .execute(() -> passengerRepository.addNotificationByFlightId(first.getFlightId(), flightNotification))
+                .assertThat(
+                        () -> passengerRepository.findNotificationPage(filter, null, 0, 0, 0, 1),
+                        notifications -> assertEquals(first.getId(), notifications.get(0).passengerId)
+                )
+                .assertThat(
+                        () -> passengerRepository.findNotificationPage(filter, null, 0, 0, 0, 1)
+                                .chain(firstPage -> passengerRepository.findNotificationPage(filter, null, firstPage.get(0).id, firstPage.get(0).passengerId, 0, 10)),
+                        notifications -> {
+                            assertEquals(1, notifications.size());
+                            assertEquals(second.getId(), notifications.get(0).passengerId);
+                        }
+                );
+    }
+
     @Test
     @TestReactiveTransaction
     void shouldFindPassengersForFlight(UniAsserter asserter) {
@@ -98,10 +168,55 @@ class PassengerRepositoryTest {
 
     @Test
     @TestReactiveTransaction
-    void shouldFindNotificationsWithEmail(UniAsserter asserter) {
-        // TODO implement this test
-        // this test should find all notifications with the email of the passenger
-        // test findNotificationsWithEmail method
+    void shouldFindPageOfPassengersForFlight(UniAsserter asserter) {
+        Passenger first = createTestPassenger();
+        Passenger second = createTestPassenger();
+        Passenger otherFlight = createTestPassenger();
+        otherFlight.setFlightId(2L);
+        var filter = new PassengerFilter();
+        filter.flightId = 1L;
+
+        asserter
+                .execute(() -> passengerRepository.persist(first, second, otherFlight))
+                .assertThat(
+                        () -> passengerRepository.findPage(filter, null, 0, 0, 1),
+                        passengers -> {
+                            assertEquals(1, passengers.size());
+                            assertEquals(first.getId(), passengers.get(0).id);
+                        }
+                )
+                .assertThat(
+                        () -> passengerRepository.findPage(filter, null, first.getId(), 0, 10),
+                        passengers -> {
+                            assertEquals(1, passengers.size());
+                            assertEquals(second.getId(), passengers.get(0).id);
+                        }
+                );
+    }
+
+    @Test
+    @TestReactiveTransaction
+    void shouldFindNextPageOfSortedPassengersWithOffset(UniAsserter asserter) {
+        Passenger first = createTestPassenger();
+        Passenger second = createTestPassenger();
+        second.setLastName("Adams");
+        var filter = new PassengerFilter();
+        filter.flightId = 1L;
+
+        asserter
+                .execute(() -> passengerRepository.persist(first, second))
+                .assertThat(
+                        () -> passengerRepository.findPage(filter, "lastName", 0, 1, 1),
+                        passengers -> {
+                            assertEquals(1, passengers.size());
+                            assertEquals(first.getId(), passengers.get(0).id);
+                        }
+                );
+    }
+
+    @Test
+    @TestReactiveTransaction
+    void shouldFindNotificationPageWithEmail(UniAsserter asserter) {
         Passenger passenger = createTestPassenger();
         Notification notification = createTestNotification();
         passenger.addNotification(notification);
@@ -109,7 +224,7 @@ class PassengerRepositoryTest {
         asserter
                 .execute(() -> passengerRepository.persist(passenger))
                 .assertThat(
-                        passengerRepository::findNotificationsWithEmail,
+                        () -> passengerRepository.findNotificationPage(new NotificationFilter(), null, 0, 0, 0, 10),
                         notificationDtos -> {
                             assertEquals(1, notificationDtos.size());
                             NotificationDto dto = notificationDtos.get(0);
@@ -153,9 +268,12 @@ class PassengerRepositoryTest {
         Notification notification = createTestNotification();
 
         asserter
-                .execute(() -> passengerRepository.addNotificationByFlightId(-1L, notification))
                 .assertThat(
-                        () -> passengerRepository.findNotificationsWithEmail(),
+                        () -> passengerRepository.addNotificationByFlightId(-1L, notification),
+                        inserted -> assertEquals(0, inserted)
+                )
+                .assertThat(
+                        () -> passengerRepository.findNotificationPage(new NotificationFilter(), null, 0, 0, 0, 10),
                         notifications -> assertEquals(0, notifications.size())
                 );
     }
@@ -174,12 +292,10 @@ class PassengerRepositoryTest {
 
     @Test
     @TestReactiveTransaction
-    void shouldHandleEmptyPassengerRepositoryForNotificationsWithEmail(UniAsserter asserter) {
-        // TODO implement this test
-        // test findNotificationsWithEmail method
+    void shouldHandleEmptyPassengerRepositoryForNotificationStream(UniAsserter asserter) {
         asserter
                 .assertThat(
-                        passengerRepository::findNotificationsWithEmail,
+                        () -> passengerRepository.streamNotifications(new NotificationFilter(), 10).collect().asList(),
                         notifications -> assertEquals(0, notifications.size())
                 );
     }
@@ -212,4 +328,28 @@ class PassengerRepositoryTest {
                         Assertions::assertNull
                 );
     }
+
+    @Test
+    @TestReactiveTransaction
+    void shouldCountDeletedPassengersByFlight(UniAsserter asserter) {
+        Passenger first = createTestPassenger();
+        first.setFlightId(901L);
+        Passenger second = createTestPassenger();
+        second.setFlightId(901L);
+        Passenger third = createTestPassenger();
+        third.setFlightId(902L);
+
+        asserter
+                .execute(() -> passengerRepository.persist(first, second, third))
+                .assertThat(
+                        () -> passengerRepository.deleteAllCountingByFlight(),
+                        rows -> {
+                            var deletedByFlight = rows.stream().filter(row -> row[0] != null)
+                                    .collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
+                            assertEquals(2L, deletedByFlight.get(901L));
+                            assertEquals(1L, deletedByFlight.get(902L));
+                        }
+                )
+                .assertEquals(() -> passengerRepository.count(), 0L);
+    }
 }
@@ -6,6 +6,7 @@ import cz.muni.fi.airportmanager.passengerservice.service.NotificationService;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.common.http.TestHTTPEndpoint;
 import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.core.Response;
 import org.junit.jupiter.api.Test;
@@ -15,6 +16,7 @@ import java.util.List;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @QuarkusTest
 @TestHTTPEndpoint(NotificationResource.class)
@@ -40,7 +42,7 @@ class NotificationResourceTest {
 
     @Test
     void shouldGetEmptyList() {
-        Mockito.when(notificationService.listAll()).thenReturn(Uni.createFrom().item(List.of()));
+        Mockito.when(notificationService.listPage(Mockito.any(), Mockito.isNull(), Mockito.eq(0L), Mockito.eq(0L), Mockito.eq(0), Mockito.eq(100))).thenReturn(Uni.createFrom().item(List.of()));
 
         given().when()
                 .get()
@@ -52,7 +54,7 @@ class NotificationResourceTest {
     @Test
     void shouldGetNotifications() {
         var notification = createNotificationDto();
-        Mockito.when(notificationService.listAll()).thenReturn(Uni.createFrom().item(List.of(notification)));
+        Mockito.when(notificationService.listPage(Mockito.any(), Mockito.isNull(), Mockito.eq(0L), Mockito.eq(0L), Mockito.eq(0), Mockito.eq(100))).thenReturn(Uni.createFrom().item(List.of(notification)));
 
         given().when()
                 .get()
@@ -61,6 +63,45 @@ class NotificationResourceTest {
                 .body("size()", is(1));
     }
 
+    @Test
+    void shouldGetNextPageOfNotifications() {
+        var notification = createNotificationDto();
+        Mockito.when(notificationService.listPage(Mockito.any(), Mockito.isNull(), Mockito.eq(1L), Mockito.eq(2L), Mockito.eq(0), Mockito.eq(10))).thenReturn(Uni.createFrom().item(List.of(notification)));
+
+        given().queryParam("after", 1)
+                .queryParam("afterPassenger", 2)
+                .queryParam("limit", 10)
+                .when()
+                .get()
+                .then()
+                .statusCode(Response.Status.OK.getStatusCode())
+                .body("[0].email", is(notification.email));
+    }
+
+    @Test
+    void shouldNotGetPageOfNotificationsWithInvalidLimit() {
+        given().queryParam("limit", 1001)
+                .when()
+                .get()
+                .then()
+                .statusCode(Response.Status.BAD_REQUEST.getStatusCode());
+    }
+
+    @Test
+    void shouldExportNotificationsAsNdjson() {
+        Mockito.when(notificationService.stream(Mockito.any())).thenReturn(Multi.createFrom().items(createNotificationDto(), createNotificationDto()));
+
+        var lines = given().accept("application/x-ndjson")
+                .when()
+                .get("/export")
+                .then()
+                .statusCode(Response.Status.OK.getStatusCode())
+                .extract().asString().lines()
+                .filter(line -> !line.isBlank())
+                .count();
+
+        assertEquals(2, lines);
+    }
 
     @Test
     void shouldDeleteAllNotifications() {
@@ -1,9 +1,12 @@
 package cz.muni.fi.airportmanager.passengerservice.resource;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import cz.muni.fi.airportmanager.passengerservice.entity.Notification;
 import cz.muni.fi.airportmanager.passengerservice.entity.Passenger;
 import cz.muni.fi.airportmanager.passengerservice.model.CreatePassengerDto;
+import cz.muni.fi.airportmanager.passengerservice.model.PassengerDto;
 import cz.muni.fi.airportmanager.passengerservice.service.PassengerService;
+import cz.muni.fi.airportmanager.proto.PassengerListPayload;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.common.http.TestHTTPEndpoint;
 import io.quarkus.test.junit.QuarkusTest;
@@ -13,10 +16,12 @@ import org.mockito.Mockito;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @QuarkusTest
 @TestHTTPEndpoint(PassengerResource.class)
@@ -28,8 +33,8 @@ class PassengerResourceTest {
     @Test
     void shouldGetEmptyListOfPassengers() {
         // TODO implement this test
-        // mock the passengerService.listAll() method to return an empty list
-        Mockito.when(this.passengerService.listAll()).thenReturn(Uni.createFrom().item(List.of()));
+        // mock the passengerService.listPage() method to return an empty list
+        Mockito.when(this.passengerService.listPage(Mockito.any(), Mockito.isNull(), Mockito.eq(0L), Mockito.eq(0), Mockito.eq(100))).thenReturn(Uni.createFrom().item(List.of()));
 
         given().when()
                 .get()
@@ -41,14 +46,126 @@ class PassengerResourceTest {
     @Test
     void shouldGetListOfPassengers() {
         // TODO implement this test
-        // mock the passengerService.listAll() method to return a list with one passenger
-        Mockito.when(this.passengerService.listAll()).thenReturn(Uni.createFrom().item(List.of(createPassenger())));
+        // mock the passengerService.listPage() method to return a list with one passenger
+        Mockito.when(this.passengerService.listPage(Mockito.any(), Mockito.isNull(), Mockito.eq(0L), Mockito.eq(0), Mockito.eq(100))).thenReturn(Uni.createFrom().item(List.of(createPassengerDto())));
 
         given().when()
                 .get()
                 .then()
                 .statusCode(200)
-                .body("size()", is(1));
+                .body("size()", is(1))
+                .body("[0].notifications", is((Object) null));
+    }
+
+    @Test
+    void shouldGetListOfPassengersAsProtobuf() throws Exception {
+        var passenger = createPassengerDto();
+        Mockito.when(this.passengerService.listPage(Mockito.any(), Mockito.isNull(), Mockito.eq(0L), Mockito.eq(0), Mockito.eq(100))).thenReturn(Uni.createFrom().item(List.of(passenger)));
+
+        var body = given().accept("application/x-protobuf")
+                .when()
+                .get()
+                .then()
+                .statusCode(200)
+                .contentType("application/x-protobuf")
+                .extract().asByteArray();
+
+        var passengers = PassengerListPayload.parseFrom(body);
+        assertEquals(1, passengers.getPassengersCount());
+        assertEquals(passenger.email, passengers.getPassengers(0).getEmail());
+    }
+
+    @Test
+    void shouldGetListOfPassengersAsCbor() throws Exception {
+        var passenger = createPassengerDto();
+        Mockito.when(this.passengerService.listPage(Mockito.any(), Mockito.isNull(), Mockito.eq(0L), Mockito.eq(0), Mockito.eq(100))).thenReturn(Uni.createFrom().item(List.of(passenger)));
+
+        var body = given().accept("application/cbor")
+                .when()
+                .get()
+                .then()
+                .statusCode(200)
+                .contentType("application/cbor")
+                .extract().asByteArray();
+
+        var passengers = new CBORMapper().readTree(body);
+        assertEquals(1, passengers.size());
+        assertEquals(passenger.email, passengers.get(0).get("email").asText());
+    }
+
+    @Test
+    void shouldGetSelectedFieldsOfFilteredPassengers() {
+        Mockito.when(this.passengerService.listPageFields(Mockito.any(), Mockito.eq("id,email"), Mockito.eq("-id"), Mockito.eq(0L), Mockito.eq(0), Mockito.eq(100)))
+                .thenReturn(Uni.createFrom().item(List.of(Map.of("id", 1L, "email", "john@doe.com"))));
+
+        given().queryParam("flightId", 1)
+                .queryParam("fields", "id,email")
+                .queryParam("sort", "-id")
+                .when()
+                .get()
+                .then()
+                .statusCode(200)
+                .body("[0].email", equalTo("john@doe.com"))
+                .body("[0].firstName", is((Object) null));
+    }
+
+    @Test
+    void shouldNotGetPassengersSortedByUnknownField() {
+        Mockito.when(this.passengerService.listPage(Mockito.any(), Mockito.eq("unknown"), Mockito.eq(0L), Mockito.eq(0), Mockito.eq(100)))
+                .thenReturn(Uni.createFrom().failure(new IllegalArgumentException("Unknown field unknown")));
+
+        given().queryParam("sort", "unknown")
+                .when()
+                .get()
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void shouldGetNextPageOfPassengers() {
+        Mockito.when(this.passengerService.listPage(Mockito.any(), Mockito.isNull(), Mockito.eq(1L), Mockito.eq(0), Mockito.eq(1))).thenReturn(Uni.createFrom().item(List.of()));
+
+        given().queryParam("after", 1)
+                .queryParam("limit", 1)
+                .when()
+                .get()
+                .then()
+                .statusCode(200)
+                .body(is("[]"));
+    }
+
+    @Test
+    void shouldNotGetPageOfPassengersWithInvalidLimit() {
+        given().queryParam("limit", 0)
+                .when()
+                .get()
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void shouldNotGetSelectedFieldsAsProtobuf() {
+        given().accept("application/x-protobuf")
+                .queryParam("fields", "id")
+                .when()
+                .get()
+                .then()
+                .statusCode(406);
+    }
+
+    @Test
+    void shouldGetSelectedFieldsAsJsonWhenProtobufIsNotAccepted() {
+        Mockito.when(this.passengerService.listPageFields(Mockito.any(), Mockito.eq("id"), Mockito.isNull(), Mockito.eq(0L), Mockito.eq(0), Mockito.eq(100)))
+                .thenReturn(Uni.createFrom().item(List.of(Map.of("id", 1L))));
+
+        given().accept("application/json, application/x-protobuf;q=0")
+                .queryParam("fields", "id")
+                .when()
+                .get()
+                .then()
+                .statusCode(200)
+                .contentType("application/json")
+                .body("[0].id", equalTo(1));
     }
 
     @Test
@@ -71,6 +188,19 @@ class PassengerResourceTest {
                 .body("id", equalTo(responsePassenger.getId().intValue()));
     }
 
+    @Test
+    void shouldNotCreatePassengerOnFullFlight() {
+        Mockito.when(this.passengerService.createPassenger(Mockito.any(CreatePassengerDto.class)))
+                .thenReturn(Uni.createFrom().failure(new IllegalStateException("No seat available")));
+
+        given().contentType("application/json")
+                .body(createTestPassengerDto())
+                .when()
+                .post()
+                .then()
+                .statusCode(409);
+    }
+
     @Test
     void shouldGetExistingPassenger() {
         // TODO implement this test
@@ -139,7 +269,7 @@ class PassengerResourceTest {
     void shouldNotFindPassengersForNonexistentFlight() {
         // TODO implement this test
         // mock the passengerService.getPassengersForFlight() method to return an empty list
-        Mockito.when(this.passengerService.getPassengersForFlight(Mockito.anyLong())).thenReturn(Uni.createFrom().item(List.of()));
+        Mockito.when(this.passengerService.getPassengersForFlight(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyInt())).thenReturn(Uni.createFrom().item(List.of()));
 
         given().when()
                 .get("/flight/99")
@@ -154,16 +284,16 @@ class PassengerResourceTest {
         // TODO implement this test
         // mock the passengerService.getPassengersForFlight() method to return a list with one passenger
         Long flightId = 1L;
-        List<Passenger> passengers = List.of(createPassenger());
-        Mockito.when(passengerService.getPassengersForFlight(flightId)).thenReturn(Uni.createFrom().item(passengers));
+        List<PassengerDto> passengers = List.of(createPassengerDto());
+        Mockito.when(passengerService.getPassengersForFlight(flightId, 0L, 100)).thenReturn(Uni.createFrom().item(passengers));
 
         given().when()
                 .get("/flight/" + flightId)
                 .then()
                 .statusCode(200)
                 .body("size()", is(1))
-                .body("[0].id", equalTo(passengers.get(0).getId().intValue()))
-                .body("[0].email", equalTo(passengers.get(0).getEmail()));
+                .body("[0].id", equalTo(passengers.get(0).id.intValue()))
+                .body("[0].email", equalTo(passengers.get(0).email));
     }
 
     @Test
@@ -171,7 +301,7 @@ class PassengerResourceTest {
         // TODO implement this test
         // mock the passengerService.getPassengersForFlight() method to return an empty list
         Long flightId = 1L;
-        Mockito.when(passengerService.getPassengersForFlight(flightId)).thenReturn(Uni.createFrom().item(List.of()));
+        Mockito.when(passengerService.getPassengersForFlight(flightId, 0L, 100)).thenReturn(Uni.createFrom().item(List.of()));
 
         given().when()
                 .get("/flight/" + flightId)
@@ -243,6 +373,10 @@ class PassengerResourceTest {
         return passenger;
     }
 
+    private PassengerDto createPassengerDto() {
+        return new PassengerDto(1L, "John", "Doe", "johndoe@gmail.com", 1L);
+    }
+
     private CreatePassengerDto createTestPassengerDto() {
         CreatePassengerDto passengerDto = new CreatePassengerDto();
         passengerDto.firstName = "John";
@@ -2,12 +2,14 @@ package cz.muni.fi.airportmanager.passengerservice.service;
 
 import cz.muni.fi.airportmanager.passengerservice.entity.Notification;
 import cz.muni.fi.airportmanager.passengerservice.model.NotificationDto;
+import cz.muni.fi.airportmanager.passengerservice.model.NotificationFilter;
 import cz.muni.fi.airportmanager.passengerservice.repository.PassengerRepository;
 import io.quarkus.panache.mock.PanacheMock;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.TestReactiveTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.vertx.UniAsserter;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
@@ -28,13 +30,6 @@ class NotificationServiceTest {
     @InjectMock
     PassengerRepository passengerRepository;
 
-    private Notification createNotification() {
-        Notification notification = new Notification();
-        notification.id = 1L;
-        notification.message = "Test message";
-        return notification;
-    }
-
     private NotificationDto createNotificationDto() {
         NotificationDto notificationDto = new NotificationDto();
         notificationDto.id = 1L;
@@ -45,15 +40,12 @@ class NotificationServiceTest {
 
     @Test
     @TestReactiveTransaction
-    void shouldGetListOfNotifications(UniAsserter asserter) {
-        Notification notification = createNotification();
+    void shouldGetPageOfNotifications(UniAsserter asserter) {
         var notificationDto = createNotificationDto();
-//        Mock active record class
-        asserter.execute(() -> PanacheMock.mock(Notification.class));
-        asserter.execute(() -> Mockito.when(Notification.listAll()).thenReturn(Uni.createFrom().item(List.of(notification))));
-        asserter.execute(() -> Mockito.when(passengerRepository.findNotificationsWithEmail()).thenReturn(Uni.createFrom().item(List.of(notificationDto))));
+        var filter = new NotificationFilter();
+        asserter.execute(() -> Mockito.when(passengerRepository.findNotificationPage(filter, null, 0, 0, 0, 10)).thenReturn(Uni.createFrom().item(List.of(notificationDto))));
 
-        asserter.assertThat(() -> notificationService.listAll(),
+        asserter.assertThat(() -> notificationService.listPage(filter, null, 0, 0, 0, 10),
                 notificationList -> {
                     assertNotNull(notificationList);
                     assertFalse(notificationList.isEmpty());
@@ -62,6 +54,17 @@ class NotificationServiceTest {
                 });
     }
 
+    @Test
+    @TestReactiveTransaction
+    void shouldStreamNotifications(UniAsserter asserter) {
+        var notificationDto = createNotificationDto();
+        var filter = new NotificationFilter();
+        asserter.execute(() -> Mockito.when(passengerRepository.streamNotifications(Mockito.eq(filter), Mockito.anyInt())).thenReturn(Multi.createFrom().item(notificationDto)));
+
+        asserter.assertThat(() -> notificationService.stream(filter).collect().asList(),
+                notificationList -> assertEquals(List.of(notificationDto), notificationList));
+    }
+
 
     @Test
     @TestReactiveTransaction
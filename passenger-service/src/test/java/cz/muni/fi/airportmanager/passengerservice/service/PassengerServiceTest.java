@@ -3,6 +3,8 @@ package cz.muni.fi.airportmanager.passengerservice.service;
 import cz.muni.fi.airportmanager.passengerservice.entity.Notification;
 import cz.muni.fi.airportmanager.passengerservice.entity.Passenger;
 import cz.muni.fi.airportmanager.passengerservice.model.CreatePassengerDto;
+import cz.muni.fi.airportmanager.passengerservice.model.PassengerDto;
+import cz.muni.fi.airportmanager.passengerservice.model.PassengerFilter;
 import cz.muni.fi.airportmanager.passengerservice.repository.PassengerRepository;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
@@ -34,13 +36,13 @@ class PassengerServiceTest {
     @RunOnVertxContext
     void shouldGetListOfPassengers(UniAsserter asserter) {
         // TODO implement this test
-        // mock the passengerRepository.listAll() method to return a list with one passenger
-        // use createTestPassenger helper method
-        var passenger = createTestPassenger();
-        asserter.execute(() -> Mockito.when(passengerRepository.listAll()).thenReturn(Uni.createFrom().item(List.of(passenger))));
+        // mock the passengerRepository.findPage() method to return a list with one passenger
+        var passenger = new PassengerDto(1L, "John", "Doe", "john@gmail.com", 1L);
+        var filter = new PassengerFilter();
+        asserter.execute(() -> Mockito.when(passengerRepository.findPage(filter, null, 0L, 0, 100)).thenReturn(Uni.createFrom().item(List.of(passenger))));
 
         asserter.assertThat(
-                () -> passengerService.listAll(),
+                () -> passengerService.listPage(filter, null, 0L, 0, 100),
                 passengers -> {
                     assertNotNull(passengers);
                     assertFalse(passengers.isEmpty());
@@ -57,6 +59,7 @@ class PassengerServiceTest {
         // mock the passengerRepository.findById() method to return a passenger
         var passenger = createTestPassenger();
         asserter.execute(() -> Mockito.when(passengerRepository.findById(passenger.getId())).thenReturn(Uni.createFrom().item(passenger)));
+        asserter.execute(() -> Mockito.when(passengerRepository.findNotificationsForPassenger(passenger.getId())).thenReturn(Uni.createFrom().item(List.of())));
 
         asserter.assertThat(
                 () -> passengerService.getPassenger(passenger.getId()),
@@ -71,13 +74,14 @@ class PassengerServiceTest {
     @RunOnVertxContext
     void shouldGetPassengersForFlight(UniAsserter asserter) {
         // TODO implement this test
-        // mock the passengerRepository.findPassengersForFlight() method to return a list with one passenger
-        var passenger = createTestPassenger();
+        // mock the passengerRepository.findPage() method to return a list with one passenger
+        var passenger = new PassengerDto(1L, "John", "Doe", "john@gmail.com", 123L);
         Long flightId = 123L;
-        asserter.execute(() -> Mockito.when(passengerRepository.findPassengersForFlight(flightId)).thenReturn(Uni.createFrom().item(List.of(passenger))));
+        asserter.execute(() -> Mockito.when(passengerRepository.findPage(Mockito.argThat(filter -> flightId.equals(filter.flightId)), Mockito.isNull(), Mockito.eq(0L), Mockito.eq(0), Mockito.eq(100)))
+                .thenReturn(Uni.createFrom().item(List.of(passenger))));
 
         asserter.assertThat(
-                () -> passengerService.getPassengersForFlight(flightId),
+                () -> passengerService.getPassengersForFlight(flightId, 0L, 100),
                 passengers -> {
                     assertNotNull(passengers);
                     assertFalse(passengers.isEmpty());
@@ -111,6 +115,8 @@ class PassengerServiceTest {
         // TODO implement this test
         // mock the passengerRepository.deleteById() method to return true
         Long passengerId = 1L;
+        var passenger = Passenger.fromDto(createTestPassengerDto());
+        asserter.execute(() -> Mockito.when(passengerRepository.findById(passengerId)).thenReturn(Uni.createFrom().item(passenger)));
         asserter.execute(() -> Mockito.when(passengerRepository.deleteById(passengerId)).thenReturn(Uni.createFrom().item(true)));
 
         asserter.assertTrue(
@@ -122,14 +128,15 @@ class PassengerServiceTest {
     @RunOnVertxContext
     void shouldDeleteAllPassengers(UniAsserter asserter) {
         // TODO implement this test
-        // mock the passengerRepository.deleteAll() method to return 1
-        asserter.execute(() -> Mockito.when(passengerRepository.deleteAll()).thenReturn(Uni.createFrom().item(1L)));
+        // mock the passengerRepository.deleteAllCountingByFlight() method to return passengers deleted from two flights
+        List<Object[]> deletedByFlight = List.of(new Object[]{123L, 2L}, new Object[]{456L, 1L});
+        asserter.execute(() -> Mockito.when(passengerRepository.deleteAllCountingByFlight()).thenReturn(Uni.createFrom().item(deletedByFlight)));
 
         asserter.assertThat(
                 () -> passengerService.deleteAllPassengers(),
                 count -> {
                     assertNotNull(count);
-                    assertEquals(1L, count);
+                    assertEquals(3L, count);
                 }
         );
     }
@@ -144,7 +151,7 @@ class PassengerServiceTest {
         var notification = createNotification();
 
         // Mock the behavior of the repository
-        asserter.execute(() -> Mockito.when(passengerRepository.addNotificationByFlightId(flightId, notification)).thenReturn(Uni.createFrom().voidItem()));
+        asserter.execute(() -> Mockito.when(passengerRepository.addNotificationByFlightId(flightId, notification)).thenReturn(Uni.createFrom().item(1)));
         asserter.execute(() -> Mockito.when(passengerRepository.findNotificationsForPassenger(passengerId)).thenReturn(Uni.createFrom().item(List.of(notification))));
 
         asserter.execute(() -> passengerService.addNotificationByFlightId(flightId, notification))
@@ -196,6 +203,7 @@ class PassengerServiceTest {
         // TODO implement this test
         // mock the passengerRepository.deleteById() method to return false
         Long invalidId = -1L;
+        asserter.execute(() -> Mockito.when(passengerRepository.findById(invalidId)).thenReturn(Uni.createFrom().nullItem()));
         asserter.execute(() -> Mockito.when(passengerRepository.deleteById(invalidId)).thenReturn(Uni.createFrom().item(false)));
 
         asserter.assertFalse(
@@ -207,11 +215,12 @@ class PassengerServiceTest {
     @RunOnVertxContext
     void shouldHandleEmptyListOfPassengers(UniAsserter asserter) {
         // TODO implement this test
-        // mock the passengerRepository.listAll() method to return an empty list
-        asserter.execute(() -> Mockito.when(passengerRepository.listAll()).thenReturn(Uni.createFrom().item(List.of())));
+        // mock the passengerRepository.findPage() method to return an empty list
+        var filter = new PassengerFilter();
+        asserter.execute(() -> Mockito.when(passengerRepository.findPage(filter, null, 0L, 0, 100)).thenReturn(Uni.createFrom().item(List.of())));
 
         asserter.assertThat(
-                passengerService::listAll,
+                () -> passengerService.listPage(filter, null, 0L, 0, 100),
                 passengers -> assertTrue(passengers.isEmpty())
         );
     }